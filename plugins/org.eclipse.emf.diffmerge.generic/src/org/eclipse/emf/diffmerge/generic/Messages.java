@@ -24,6 +24,7 @@ public class Messages extends NLS {
   public static String AbstractDifference_UnableToMerge;
   public static String DiffBuilder_Task_Main;
   public static String Comparison_Task_Main;
+  public static String LoadingOperation_Name;
   public static String MatchBuilder_Task_Main;
   public static String MatchBuilder_Task_MappingIDs;
   public static String MatchBuilder_Task_RegisteringIDs;
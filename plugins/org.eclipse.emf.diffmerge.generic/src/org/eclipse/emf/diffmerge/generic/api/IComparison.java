@@ -64,6 +64,28 @@ public interface IComparison<E> {
   IStatus compute(IMatchPolicy<E> matchPolicy_p, IDiffPolicy<E> diffPolicy_p,
       IMergePolicy<E> mergePolicy_p, IProgressMonitor monitor_p);
   
+  /**
+   * Compute this comparison according to the given policies, using up to the given
+   * number of threads in the phases of the computation which support it.
+   * The result is the same as with sequential computation, but the policies must support
+   * concurrent read accesses, which is why parallelism is opt-in: the other variants of
+   * compute are sequential. Computation is only parallel if all the scopes declare
+   * that they support concurrent reads through IRawDataScope#supportsConcurrentReads().
+   * Postcondition: if result.isOk() then getLastMergePolicy() != null
+   * @see IComparison#compute(IMatchPolicy, IDiffPolicy, IMergePolicy, IProgressMonitor)
+   * @param matchPolicy_p an optional match policy (null stands for default)
+   * @param diffPolicy_p an optional diff policy (null stands for default)
+   * @param mergePolicy_p an optional merge policy (null stands for default)
+   * @param parallelism_p the maximal number of threads: 1 for sequential computation,
+   *        0 or less for as many threads as available processors
+   * @param monitor_p an optional progress monitor
+   * @return a non-null status of the execution
+   */
+  default IStatus compute(IMatchPolicy<E> matchPolicy_p, IDiffPolicy<E> diffPolicy_p,
+      IMergePolicy<E> mergePolicy_p, int parallelism_p, IProgressMonitor monitor_p) {
+    return compute(matchPolicy_p, diffPolicy_p, mergePolicy_p, monitor_p);
+  }
+  
   /**
    * Return a tree iterator over matches based on getContentsOf(IMatch, Role)
    * @see IComparison#getContentsOf(IMatch, Role)
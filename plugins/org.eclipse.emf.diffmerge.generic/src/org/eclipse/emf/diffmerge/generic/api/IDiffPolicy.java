@@ -33,6 +33,20 @@ public interface IDiffPolicy<E> {
   boolean considerEqual(Object value1_p, Object value2_p, Object attribute_p,
       ITreeDataScope<E> scope_p);
   
+  /**
+   * Return whether considerEqual(Object, Object, Object, ITreeDataScope) is equivalent,
+   * for the given attribute, to the equality of the keys returned by
+   * getAttributeValueKey(Object, Object, ITreeDataScope). If so, values of the
+   * attribute can be aligned through hashing instead of pairwise comparisons.
+   * This is an opt-in: by default, false is returned and values are compared pairwise.
+   * @see IDiffPolicy#getAttributeValueKey(Object, Object, ITreeDataScope)
+   * @param attribute_p the non-null attribute concerned
+   * @param scope_p the non-null scope the attribute is from
+   */
+  default boolean considerEqualByKey(Object attribute_p, ITreeDataScope<E> scope_p) {
+    return false;
+  }
+  
   /**
    * Return whether the given out-of-scope value must be considered equal to the
    * given candidate value. True may only be returned if the candidate value is also
@@ -112,4 +126,20 @@ public interface IDiffPolicy<E> {
    */
   boolean coverValue(Object value_p, Object attribute_p, ITreeDataScope<E> scope_p);
   
+  /**
+   * Return a key for the given attribute value whose equals(Object) and hashCode()
+   * methods are consistent with considerEqual(Object, Object, Object, ITreeDataScope).
+   * This operation is only called if considerEqualByKey(Object, ITreeDataScope)
+   * returns true for the attribute.
+   * @see IDiffPolicy#considerEqualByKey(Object, ITreeDataScope)
+   * @param value_p a non-null attribute value
+   * @param attribute_p the non-null attribute concerned
+   * @param scope_p the non-null scope the attribute is from
+   * @return a non-null object
+   */
+  default Object getAttributeValueKey(Object value_p, Object attribute_p,
+      ITreeDataScope<E> scope_p) {
+    return value_p;
+  }
+  
 }
@@ -178,6 +178,38 @@ public interface IMapping<E> {
      */
     void completeReferences(Role role_p);
     
+    /**
+     * Complete the references between completed elements in the given role, knowing
+     * that only the given matches have been completed since references were last completed.
+     * By default, the references between all completed elements are completed.
+     * @param role_p a role which is TARGET or REFERENCE
+     * @param newlyCompleted_p a non-null, potentially empty collection of matches
+     *          which belong to getCompletedMatches(role_p)
+     */
+    default void completeReferences(Role role_p,
+        Collection<? extends IMatch<E>> newlyCompleted_p) {
+      completeReferences(role_p);
+    }
+    
+    /**
+     * Start deferring the removal of matches from this mapping until
+     * flushMatchRemovals() is called. While removals are deferred, a removed match
+     * no longer covers any element but may still belong to getContents().
+     * By default, removals are not deferred.
+     */
+    default void deferMatchRemovals() {
+      // Nothing by default
+    }
+    
+    /**
+     * Actually remove the matches whose removal has been deferred, if any,
+     * and stop deferring removals
+     * @see IMapping.Editable#deferMatchRemovals()
+     */
+    default void flushMatchRemovals() {
+      // Nothing by default
+    }
+    
     /**
      * @see org.eclipse.emf.diffmerge.generic.api.IMapping#getComparison()
      */
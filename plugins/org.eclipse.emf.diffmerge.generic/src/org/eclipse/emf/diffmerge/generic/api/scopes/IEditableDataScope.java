@@ -11,6 +11,8 @@
  **********************************************************************/
 package org.eclipse.emf.diffmerge.generic.api.scopes;
 
+import java.util.List;
+
 
 /**
  * A data scope which can be directly modified.
@@ -34,6 +36,27 @@ IRawDataScope.Editable<E> {
    */
   boolean addAttributeValue(E source_p, Object attribute_p, Object value_p);
   
+  /**
+   * Add the given values in the given order to the given element on the given attribute
+   * as far as possible, as addAttributeValue(E, Object, Object) would on each value.
+   * Implementations may group the additions into fewer and larger modifications.
+   * By default, values are added one at a time.
+   * If the given element does not belong to this scope, the behavior of this
+   * operation is undefined.
+   * @param source_p a non-null element
+   * @param attribute_p a non-null attribute
+   * @param values_p a non-null, potentially empty list of attribute values which are
+   *          type-compatible with the attribute
+   * @return whether the operation succeeded for all values
+   */
+  default boolean addAttributeValues(E source_p, Object attribute_p, List<?> values_p) {
+    boolean result = true;
+    for (Object value : values_p) {
+      result = addAttributeValue(source_p, attribute_p, value) && result;
+    }
+    return result;
+  }
+  
   /**
    * Add the given value to the given element on the given reference if possible,
    * otherwise do nothing.
@@ -48,6 +71,28 @@ IRawDataScope.Editable<E> {
    */
   boolean addReferenceValue(E source_p, Object reference_p, E value_p);
   
+  /**
+   * Add the given values in the given order to the given element on the given reference
+   * as far as possible, as addReferenceValue(E, Object, E) would on each value.
+   * Implementations may group the additions into fewer and larger modifications.
+   * By default, values are added one at a time.
+   * If the given element does not belong to this scope, the behavior of this
+   * operation is undefined.
+   * @param source_p a non-null element
+   * @param reference_p a non-null reference
+   * @param values_p a non-null, potentially empty list of elements as values which are
+   *          type-compatible with the reference
+   * @return whether the operation succeeded for all values
+   */
+  default boolean addReferenceValues(E source_p, Object reference_p,
+      List<? extends E> values_p) {
+    boolean result = true;
+    for (E value : values_p) {
+      result = addReferenceValue(source_p, reference_p, value) && result;
+    }
+    return result;
+  }
+  
   /**
    * Disconnect the given element from others prior to its removal.
    * It may only called if tIsElementDisconnectionRequired() and the usage context
@@ -59,6 +59,15 @@ public interface IRawDataScope<E> extends Iterable<E> {
    */
   Iterator<E> iterator();
   
+  /**
+   * Return whether the queries of this data scope which do not modify it can be
+   * executed concurrently, that is, they have no side effect such as resolving proxies
+   * or filling caches. This is not assumed by default.
+   */
+  default boolean supportsConcurrentReads() {
+    return false;
+  }
+  
   /**
    * Return the number of elements in this data scope.
    * This operation is allowed to be computationally expensive.
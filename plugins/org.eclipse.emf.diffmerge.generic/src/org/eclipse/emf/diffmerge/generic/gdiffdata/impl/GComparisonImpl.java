@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -38,12 +39,16 @@ import org.eclipse.emf.diffmerge.generic.api.IMergePolicy;
 import org.eclipse.emf.diffmerge.generic.api.IMergeSelector;
 import org.eclipse.emf.diffmerge.generic.api.Role;
 import org.eclipse.emf.diffmerge.generic.api.diff.IDifference;
+import org.eclipse.emf.diffmerge.generic.api.diff.IElementPresence;
+import org.eclipse.emf.diffmerge.generic.api.diff.IElementRelativeDifference;
+import org.eclipse.emf.diffmerge.generic.api.diff.IReferenceValuePresence;
 import org.eclipse.emf.diffmerge.generic.api.scopes.IEditableTreeDataScope;
 import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GComparison;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GMapping;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GdiffdataPackage;
 import org.eclipse.emf.diffmerge.generic.impl.helpers.DiffOperation;
+import org.eclipse.emf.diffmerge.generic.impl.helpers.DifferenceDependencyGraph;
 import org.eclipse.emf.diffmerge.generic.impl.helpers.MatchOperation;
 import org.eclipse.emf.diffmerge.generic.impl.helpers.MergeOperation;
 import org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy;
@@ -53,7 +58,6 @@ import org.eclipse.emf.diffmerge.generic.util.IExpensiveOperation;
 import org.eclipse.emf.diffmerge.structures.IEqualityTester;
 import org.eclipse.emf.diffmerge.structures.common.FArrayList;
 import org.eclipse.emf.diffmerge.structures.common.FHashSet;
-import org.eclipse.emf.diffmerge.structures.common.FOrderedSet;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.impl.ENotificationImpl;
@@ -155,6 +159,52 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    */
   private final Map<Role, Set<Object>> _duplicateIDs;
 
+  /**
+   * The maximal number of threads to use in computations
+   * @generated NOT
+   */
+  private int _parallelism;
+
+  /**
+   * The differences which are not merged, or null if the difference index has not
+   * been built since the mapping was last reset. Once built, the index is kept up
+   * to date by the matches and differences of this comparison, including when
+   * their merge destination is reset.
+   * @generated NOT
+   */
+  private Set<IDifference<E>> _remainingDifferences;
+
+  /**
+   * The number of differences related to matches, meaningful only if the
+   * difference index is built
+   * @generated NOT
+   */
+  private int _nbDifferences;
+
+  /**
+   * The number of remaining no-containment differences, meaningful only if the
+   * difference index is built
+   * @see IComparison#getNbNoContainmentDifferences()
+   * @generated NOT
+   */
+  private int _nbNoContainmentDifferences;
+
+  /**
+   * The optional index of the contents of matches as returned by
+   * getContentsOf(IMatch), where the null key stands for the roots as returned
+   * by getContents(). The index is null if disabled, otherwise it is filled
+   * lazily on demand and cleared whenever the containment trees may have changed.
+   * @generated NOT
+   */
+  private Map<IMatch<E>, List<IMatch<E>>> _contentsIndex;
+
+  /**
+   * The graph of the merge dependencies between the differences, or null if it has
+   * not been built since the differences were last computed
+   * @generated NOT
+   */
+  private DifferenceDependencyGraph<E> _dependencyGraph;
+
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
@@ -167,6 +217,8 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
       duplicateIDs.put(role, new HashSet<Object>(0));
     }
     _duplicateIDs = Collections.unmodifiableMap(duplicateIDs);
+    _parallelism = 1;
+    _contentsIndex = null;
   }
 
   /**
@@ -574,6 +626,9 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     for (Role role : Role.values()) {
       _duplicateIDs.get(role).clear();
     }
+    invalidateDifferenceIndex();
+    invalidateContentsIndex();
+    _dependencyGraph = null;
   }
 
   /**
@@ -583,6 +638,18 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
   public IStatus compute(IMatchPolicy<E> matchPolicy_p,
       IDiffPolicy<E> diffPolicy_p, IMergePolicy<E> mergePolicy_p,
       IProgressMonitor monitor_p) {
+    return compute(matchPolicy_p, diffPolicy_p, mergePolicy_p, 1, monitor_p);
+  }
+
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.api.IComparison#compute(org.eclipse.emf.diffmerge.generic.api.IMatchPolicy, org.eclipse.emf.diffmerge.generic.api.IDiffPolicy, org.eclipse.emf.diffmerge.generic.api.IMergePolicy, int, org.eclipse.core.runtime.IProgressMonitor)
+   * @generated NOT
+   */
+  public IStatus compute(IMatchPolicy<E> matchPolicy_p,
+      IDiffPolicy<E> diffPolicy_p, IMergePolicy<E> mergePolicy_p,
+      int parallelism_p, IProgressMonitor monitor_p) {
+    _parallelism = parallelism_p > 0 ? parallelism_p
+        : Runtime.getRuntime().availableProcessors();
     // Monitor
     IProgressMonitor nonNullMonitor = monitor_p != null ? monitor_p
         : new NullProgressMonitor();
@@ -613,6 +680,9 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    */
   protected IStatus computeMatch(IMatchPolicy<E> matchPolicy_p,
       IProgressMonitor monitor_p) {
+    invalidateDifferenceIndex();
+    invalidateContentsIndex();
+    _dependencyGraph = null;
     IExpensiveOperation matchOperation = getMatchOperation(matchPolicy_p,
         _duplicateIDs);
     IStatus result = matchOperation.run(monitor_p);
@@ -632,9 +702,111 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     IExpensiveOperation diffOperation = getDiffOperation(diffPolicy_p,
         mergePolicy_p);
     IStatus result = diffOperation.run(monitor_p);
+    _dependencyGraph = null; // Dependencies may have been added
     return result;
   }
 
+  /**
+   * Update the difference index after the given difference has been added
+   * to the given match
+   * @param match_p a non-null match of this comparison
+   * @param difference_p a non-null difference which is related to match_p
+   * @generated NOT
+   */
+  protected void differenceAdded(IMatch<E> match_p,
+      IDifference<E> difference_p) {
+    if (_remainingDifferences != null) {
+      _nbDifferences++;
+      if (!difference_p.isMerged()) {
+        _remainingDifferences.add(difference_p);
+        if (isNoContainmentDifference(difference_p, match_p)) {
+          _nbNoContainmentDifferences++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Update the difference index after the given difference has been marked
+   * as merged
+   * @param difference_p a non-null difference of this comparison
+   * @generated NOT
+   */
+  protected void differenceMerged(IDifference<E> difference_p) {
+    differenceMergeStatusChanged(difference_p);
+    if (_remainingDifferences != null
+        && _remainingDifferences.remove(difference_p)
+        && difference_p instanceof IElementRelativeDifference) {
+      IMatch<E> match = ((IElementRelativeDifference<E>) difference_p)
+          .getElementMatch();
+      if (match != null && isNoContainmentDifference(difference_p, match)) {
+        _nbNoContainmentDifferences--;
+      }
+    }
+  }
+
+  /**
+   * Invalidate the contents index if the merge status of the given difference
+   * has changed in a way that may impact the containment trees
+   * @param difference_p a non-null difference of this comparison
+   * @generated NOT
+   */
+  protected void differenceMergeStatusChanged(IDifference<E> difference_p) {
+    if (difference_p instanceof IElementPresence
+        || difference_p instanceof IReferenceValuePresence
+            && (((IReferenceValuePresence<E>) difference_p).isOwnership()
+                || ((IReferenceValuePresence<E>) difference_p).isContainment())) {
+      // Containment trees have changed or are about to change
+      invalidateContentsIndex();
+    }
+  }
+
+  /**
+   * Update the difference index after the given difference has been marked
+   * as not merged, typically as a result of an undo or rollback
+   * @param difference_p a non-null difference of this comparison
+   * @generated NOT
+   */
+  protected void differenceUnmerged(IDifference<E> difference_p) {
+    differenceMergeStatusChanged(difference_p);
+    if (_remainingDifferences != null
+        && _remainingDifferences.add(difference_p)
+        && difference_p instanceof IElementRelativeDifference) {
+      IMatch<E> match = ((IElementRelativeDifference<E>) difference_p)
+          .getElementMatch();
+      if (match != null && isNoContainmentDifference(difference_p, match)) {
+        _nbNoContainmentDifferences++;
+      }
+    }
+  }
+
+  /**
+   * Build the difference index if it is not built yet
+   * @generated NOT
+   */
+  protected void ensureDifferenceIndex() {
+    if (_remainingDifferences == null) {
+      Set<IDifference<E>> remaining = new FHashSet<IDifference<E>>(
+          IEqualityTester.BY_REFERENCE);
+      int nbDifferences = 0;
+      int nbNoContainmentDifferences = 0;
+      for (IMatch<E> match : getMapping().getContents()) {
+        for (IDifference<E> difference : match.getRelatedDifferences()) {
+          nbDifferences++;
+          if (!difference.isMerged()) {
+            remaining.add(difference);
+            if (isNoContainmentDifference(difference, match)) {
+              nbNoContainmentDifferences++;
+            }
+          }
+        }
+      }
+      _nbDifferences = nbDifferences;
+      _nbNoContainmentDifferences = nbNoContainmentDifferences;
+      _remainingDifferences = remaining;
+    }
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IComparison#getAllContents(org.eclipse.emf.diffmerge.generic.api.Role)
    * @generated NOT
@@ -681,14 +853,13 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    * @generated NOT
    */
   public List<IMatch<E>> getContents() {
-    List<IMatch<E>> targetMatches = getContents(Role.TARGET);
-    List<IMatch<E>> referenceMatches = getContents(Role.REFERENCE);
-    List<IMatch<E>> result = new FArrayList<IMatch<E>>(referenceMatches, null);
-    for (IMatch<E> targetMatch : targetMatches) {
-      if (!result.contains(targetMatch))
-        result.add(targetMatch);
+    List<IMatch<E>> result = getIndexedContents(null);
+    if (result == null) {
+      result = mergeContents(getContents(Role.REFERENCE),
+          getContents(Role.TARGET));
+      setIndexedContents(null, result);
     }
-    return Collections.unmodifiableList(result);
+    return result;
   }
 
   /**
@@ -713,13 +884,13 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    * @generated NOT
    */
   public List<IMatch<E>> getContentsOf(IMatch<E> match_p) {
-    List<IMatch<E>> targetMatches = getContentsOf(match_p, Role.TARGET);
-    List<IMatch<E>> referenceMatches = getContentsOf(match_p, Role.REFERENCE);
-    List<IMatch<E>> result = new FOrderedSet<IMatch<E>>(referenceMatches, null);
-    for (IMatch<E> targetMatch : targetMatches) {
-      result.add(targetMatch);
+    List<IMatch<E>> result = getIndexedContents(match_p);
+    if (result == null) {
+      result = mergeContents(getContentsOf(match_p, Role.REFERENCE),
+          getContentsOf(match_p, Role.TARGET));
+      setIndexedContents(match_p, result);
     }
-    return Collections.unmodifiableList(result);
+    return result;
   }
 
   /**
@@ -773,6 +944,23 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     return new DefaultMergePolicy<E>();
   }
 
+  /**
+   * Return the graph of the merge dependencies between the differences of this
+   * comparison, building it if needed
+   * @return a non-null graph
+   * @generated NOT
+   */
+  protected synchronized DifferenceDependencyGraph<E> getDependencyGraph() {
+    if (_dependencyGraph == null) {
+      List<IDifference<E>> differences = new FArrayList<IDifference<E>>();
+      for (IMatch<E> match : getMapping().getContents()) {
+        differences.addAll(match.getRelatedDifferences());
+      }
+      _dependencyGraph = new DifferenceDependencyGraph<E>(differences);
+    }
+    return _dependencyGraph;
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IComparison#getDifferences(org.eclipse.emf.diffmerge.generic.api.Role)
    * @generated NOT
@@ -794,7 +982,8 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    */
   protected IExpensiveOperation getDiffOperation(IDiffPolicy<E> diffPolicy_p,
       IMergePolicy<E> mergePolicy_p) {
-    return new DiffOperation<E>(this, diffPolicy_p, mergePolicy_p);
+    return new DiffOperation<E>(this, diffPolicy_p, mergePolicy_p,
+        getParallelism());
   }
 
   /**
@@ -805,6 +994,23 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     return _duplicateIDs.get(role_p);
   }
 
+  /**
+   * Return the indexed contents of the given match, if any
+   * @param match_p a match, or null for the roots
+   * @return a potentially null list
+   * @generated NOT
+   */
+  protected List<IMatch<E>> getIndexedContents(IMatch<E> match_p) {
+    List<IMatch<E>> result = null;
+    Map<IMatch<E>, List<IMatch<E>>> index = _contentsIndex;
+    if (index != null) {
+      synchronized (index) {
+        result = index.get(match_p);
+      }
+    }
+    return result;
+  }
+
   /**
    * Return an operation for executing the Match phase
    * @param policy_p an optional match policy
@@ -814,7 +1020,17 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    */
   protected IExpensiveOperation getMatchOperation(IMatchPolicy<E> policy_p,
       Map<Role, Set<Object>> duplicateIDs_p) {
-    return new MatchOperation<E>(this, policy_p, duplicateIDs_p);
+    return new MatchOperation<E>(this, policy_p, duplicateIDs_p,
+        getParallelism());
+  }
+
+  /**
+   * Return the maximal number of threads to use in the current or last computation
+   * @return a strictly positive int
+   * @generated NOT
+   */
+  protected int getParallelism() {
+    return _parallelism;
   }
 
   /**
@@ -822,11 +1038,8 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    * @generated NOT
    */
   public int getNbDifferences() {
-    int result = 0;
-    for (IMatch<E> match : getMapping().getContents()) {
-      result += match.getRelatedDifferences().size();
-    }
-    return result;
+    ensureDifferenceIndex();
+    return _nbDifferences;
   }
 
   /**
@@ -834,11 +1047,8 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    * @generated NOT
    */
   public int getNbNoContainmentDifferences() {
-    int result = 0;
-    for (IMatch<E> match : getMapping().getContents()) {
-      result += match.getNbNoContainmentDifferences();
-    }
-    return result;
+    ensureDifferenceIndex();
+    return _nbNoContainmentDifferences;
   }
 
   /**
@@ -846,14 +1056,9 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    * @generated NOT
    */
   public Collection<IDifference<E>> getRemainingDifferences() {
+    ensureDifferenceIndex();
     Collection<IDifference<E>> result = new FHashSet<IDifference<E>>(
-        IEqualityTester.BY_EQUALS);
-    for (IMatch<E> match : getMapping().getContents()) {
-      for (IDifference<E> difference : match.getAllDifferences()) {
-        if (!difference.isMerged())
-          result.add(difference);
-      }
-    }
+        _remainingDifferences, IEqualityTester.BY_EQUALS);
     return Collections.unmodifiableCollection(result);
   }
 
@@ -881,13 +1086,33 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    * @generated NOT
    */
   public boolean hasRemainingDifferences() {
-    for (IMatch<E> match : getMapping().getContents()) {
-      for (IDifference<E> difference : match.getAllDifferences()) {
-        if (!difference.isMerged())
-          return true;
+    ensureDifferenceIndex();
+    return !_remainingDifferences.isEmpty();
+  }
+
+  /**
+   * Invalidate the contents index, if enabled, so that it be refilled on demand.
+   * This must be called whenever the containment trees of the scopes are modified
+   * otherwise than through a merge.
+   * @generated NOT
+   */
+  public void invalidateContentsIndex() {
+    Map<IMatch<E>, List<IMatch<E>>> index = _contentsIndex;
+    if (index != null) {
+      synchronized (index) {
+        index.clear();
       }
     }
-    return false;
+  }
+
+  /**
+   * Invalidate the difference index so that it be rebuilt on next access
+   * @generated NOT
+   */
+  protected void invalidateDifferenceIndex() {
+    _remainingDifferences = null;
+    _nbDifferences = 0;
+    _nbNoContainmentDifferences = 0;
   }
 
   /**
@@ -902,6 +1127,31 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     return true;
   }
 
+  /**
+   * Return whether the given difference counts as a remaining no-containment
+   * difference independently of its merge status
+   * @see IMatch#getNbNoContainmentDifferences()
+   * @param difference_p a non-null difference
+   * @param match_p the non-null match to which the difference is related
+   * @generated NOT
+   */
+  protected boolean isNoContainmentDifference(IDifference<E> difference_p,
+      IMatch<E> match_p) {
+    return difference_p instanceof IElementRelativeDifference
+        && ((IElementRelativeDifference<E>) difference_p)
+            .isUnrelatedToContainmentTree()
+        && !match_p.isPartial();
+  }
+
+  /**
+   * Return whether the contents of matches are indexed
+   * @see #setContentsIndexEnabled(boolean)
+   * @generated NOT
+   */
+  public boolean isContentsIndexEnabled() {
+    return _contentsIndex != null;
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IComparison#isThreeWay()
    * @generated NOT
@@ -910,6 +1160,25 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     return getAncestorScope() != null;
   }
 
+  /**
+   * Update the difference index after the given match has switched from partial
+   * to complete or conversely
+   * @param match_p a non-null match of this comparison
+   * @generated NOT
+   */
+  protected void matchCoverageChanged(IMatch<E> match_p) {
+    if (_remainingDifferences != null) {
+      int delta = match_p.isPartial() ? -1 : 1;
+      for (IDifference<E> difference : match_p.getRelatedDifferences()) {
+        if (!difference.isMerged() && difference instanceof IElementRelativeDifference
+            && ((IElementRelativeDifference<E>) difference)
+                .isUnrelatedToContainmentTree()) {
+          _nbNoContainmentDifferences += delta;
+        }
+      }
+    }
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IComparison#merge(org.eclipse.emf.diffmerge.generic.api.Role, boolean, org.eclipse.core.runtime.IProgressMonitor)
    * @generated not
@@ -937,6 +1206,7 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     MergeOperation<E> operation = new MergeOperation<E>(this, differences_p,
         destination_p, updateReferences_p);
     operation.run(monitor_p);
+    invalidateContentsIndex();
     return operation.getOutput();
   }
 
@@ -949,9 +1219,39 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
     MergeOperation<E> operation = new MergeOperation<E>(this, merger_p,
         updateReferences_p);
     operation.run(monitor_p);
+    invalidateContentsIndex();
     return operation.getOutput();
   }
 
+  /**
+   * Return the union of the given lists of matches, without duplicates and in order
+   * @param referenceMatches_p a non-null list of matches for the REFERENCE role
+   * @param targetMatches_p a non-null list of matches for the TARGET role
+   * @return a non-null, unmodifiable list
+   * @generated NOT
+   */
+  protected List<IMatch<E>> mergeContents(List<IMatch<E>> referenceMatches_p,
+      List<IMatch<E>> targetMatches_p) {
+    List<IMatch<E>> result;
+    if (targetMatches_p.isEmpty()) {
+      result = referenceMatches_p;
+    } else if (referenceMatches_p.isEmpty()) {
+      result = targetMatches_p;
+    } else {
+      result = new FArrayList<IMatch<E>>(
+          referenceMatches_p.size() + targetMatches_p.size(), null);
+      Set<IMatch<E>> known = new FHashSet<IMatch<E>>(referenceMatches_p,
+          IEqualityTester.BY_REFERENCE);
+      result.addAll(referenceMatches_p);
+      for (IMatch<E> targetMatch : targetMatches_p) {
+        if (!known.contains(targetMatch)) {
+          result.add(targetMatch);
+        }
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
   /**
    * Create and return a mapping for this comparison
    * @return a non-null mapping
@@ -959,6 +1259,39 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
    */
   protected abstract GMapping<E, A, R> newMapping();
 
+  /**
+   * Set whether the contents of matches must be indexed. The index is disabled by
+   * default. Once enabled, it is filled lazily: it speeds up repeated browsing of
+   * the comparison at the cost of one list per browsed match, but it is only
+   * cleared automatically by merges, so clients that enable it must call
+   * invalidateContentsIndex() whenever the scopes are modified otherwise.
+   * @param enabled_p whether the index is enabled
+   * @generated NOT
+   */
+  public void setContentsIndexEnabled(boolean enabled_p) {
+    if (enabled_p != isContentsIndexEnabled()) {
+      _contentsIndex = enabled_p
+          ? new IdentityHashMap<IMatch<E>, List<IMatch<E>>>()
+          : null;
+    }
+  }
+
+  /**
+   * Register the given contents for the given match in the contents index, if enabled
+   * @param match_p a match, or null for the roots
+   * @param contents_p a non-null, unmodifiable list
+   * @generated NOT
+   */
+  protected void setIndexedContents(IMatch<E> match_p,
+      List<IMatch<E>> contents_p) {
+    Map<IMatch<E>, List<IMatch<E>>> index = _contentsIndex;
+    if (index != null) {
+      synchronized (index) {
+        index.put(match_p, contents_p);
+      }
+    }
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IComparison.Editable#swapScopes()
    * @generated NOT
@@ -969,6 +1302,9 @@ public abstract class GComparisonImpl<E, A, R> extends GIdentifiedImpl
       IEditableTreeDataScope<E> formerTarget = targetScope;
       targetScope = referenceScope;
       referenceScope = formerTarget;
+      invalidateDifferenceIndex();
+      invalidateContentsIndex();
+      _dependencyGraph = null;
     }
     return isEmpty;
   }
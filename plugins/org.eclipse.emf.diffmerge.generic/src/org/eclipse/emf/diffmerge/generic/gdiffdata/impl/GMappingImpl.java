@@ -13,9 +13,7 @@ package org.eclipse.emf.diffmerge.generic.gdiffdata.impl;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 
 import org.eclipse.emf.common.notify.NotificationChain;
 import org.eclipse.emf.common.util.ECollections;
@@ -30,7 +28,9 @@ import org.eclipse.emf.diffmerge.generic.gdiffdata.GMapping;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GMatch;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GdiffdataPackage;
 import org.eclipse.emf.diffmerge.generic.impl.helpers.BidirectionalComparisonCopier;
+import org.eclipse.emf.diffmerge.structures.IEqualityTester;
 import org.eclipse.emf.diffmerge.structures.common.FHashMap;
+import org.eclipse.emf.diffmerge.structures.common.FHashSet;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.InternalEObject;
@@ -86,11 +86,18 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
   protected EList<IMatch<E>> targetCompletedMatches;
 
   /**
-   * A non-null, stateless copier for completing partial matches
+   * A non-null copier for completing partial matches, which keeps track of
+   * the completed matches and of their pending references
    * @generated NOT
    */
   private final BidirectionalComparisonCopier<E> _copier;
 
+  /**
+   * The matches whose removal has been deferred, or null if removals are not deferred
+   * @generated NOT
+   */
+  private Collection<IMatch<E>> _deferredRemovals;
+
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
@@ -99,6 +106,7 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
   protected GMappingImpl() {
     super();
     _copier = new BidirectionalComparisonCopier<E>();
+    _deferredRemovals = null;
   }
 
   /**
@@ -279,6 +287,15 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
     _copier.completeReferences(this, role_p);
   }
 
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.api.IMapping.Editable#completeReferences(org.eclipse.emf.diffmerge.generic.api.Role, java.util.Collection)
+   * @generated NOT
+   */
+  public void completeReferences(Role role_p,
+      Collection<? extends IMatch<E>> newlyCompleted_p) {
+    _copier.completeReferences(this, role_p, newlyCompleted_p);
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IMapping#covers(java.lang.Object, org.eclipse.emf.diffmerge.generic.api.Role)
    * @generated NOT
@@ -287,6 +304,28 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
     return getMatchFor(element_p, role_p) != null;
   }
 
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.api.IMapping.Editable#deferMatchRemovals()
+   * @generated NOT
+   */
+  public void deferMatchRemovals() {
+    if (_deferredRemovals == null) {
+      _deferredRemovals = new FHashSet<IMatch<E>>(IEqualityTester.BY_REFERENCE);
+    }
+  }
+
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.api.IMapping.Editable#flushMatchRemovals()
+   * @generated NOT
+   */
+  public void flushMatchRemovals() {
+    Collection<IMatch<E>> toRemove = _deferredRemovals;
+    _deferredRemovals = null;
+    if (toRemove != null && !toRemove.isEmpty()) {
+      getModifiableContents().removeAll(toRemove);
+    }
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IMapping#getCompletedMatches(org.eclipse.emf.diffmerge.generic.api.Role)
    * @generated NOT
@@ -436,7 +475,7 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
     IMatch<E> previous = getMatchFor(element_p, role_p);
     // Enforce consistency by removing previous match if any
     if (previous != null) {
-      getModifiableContents().remove(previous);
+      removeMatch(previous);
     }
     @SuppressWarnings("unchecked")
     GMatch<E, A, R> result = (GMatch<E, A, R>) getComparison().newMatch(
@@ -457,9 +496,6 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
     assert role1_p != null && role2_p != null && role1_p != role2_p;
     IMatch<E> newMatch = null;
     boolean result = false;
-    Map<Role, E> elements = new HashMap<Role, E>(3);
-    elements.put(role1_p, element1_p);
-    elements.put(role2_p, element2_p);
     Role role3 = Role.otherThan(role1_p, role2_p);
     E element3 = null;
     // Checking existing match in role1_p
@@ -483,21 +519,29 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
         }
         // Match found for role2_p which is different from that of role1_p
         if (newMatch != null && newMatch != found) {
-          getModifiableContents().remove(found);
+          removeMatch(found);
         } else {
           newMatch = found;
         }
       }
     }
-    elements.put(role3, element3);
+    E target = select(Role.TARGET, element1_p, role1_p, element2_p, role2_p,
+        element3);
+    E reference = select(Role.REFERENCE, element1_p, role1_p, element2_p,
+        role2_p, element3);
+    E ancestor = select(Role.ANCESTOR, element1_p, role1_p, element2_p,
+        role2_p, element3);
     if (newMatch == null) {
-      newMatch = getComparison().newMatch(elements.get(Role.TARGET),
-          elements.get(Role.REFERENCE), elements.get(Role.ANCESTOR));
+      newMatch = getComparison().newMatch(target, reference, ancestor);
       // We assume the type of the match is compatible with the mapping
       getModifiableContents().add((GMatch) newMatch);
     } else {
-      ((IMatch.Editable) newMatch).reset(elements.get(Role.TARGET),
-          elements.get(Role.REFERENCE), elements.get(Role.ANCESTOR));
+      boolean wasPartial = newMatch.isPartial();
+      ((IMatch.Editable) newMatch).reset(target, reference, ancestor);
+      if (wasPartial != newMatch.isPartial()
+          && getComparison() instanceof GComparisonImpl) {
+        ((GComparisonImpl) getComparison()).matchCoverageChanged(newMatch);
+      }
     }
     return result;
   }
@@ -536,6 +580,56 @@ public abstract class GMappingImpl<E, A, R> extends GIdentifiedImpl
     return result;
   }
 
+  /**
+   * Remove the given match from this mapping
+   * @param match_p a non-null match belonging to this mapping
+   * @generated NOT
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  protected void removeMatch(IMatch<E> match_p) {
+    if (_deferredRemovals != null) {
+      // The match is emptied so that it no longer covers any element
+      for (Role role : Role.values()) {
+        if (match_p.get(role) != null) {
+          ((IMatch.Editable) match_p).set(role, null);
+        }
+      }
+      _deferredRemovals.add(match_p);
+    } else {
+      getModifiableContents().remove(match_p);
+    }
+    if (!match_p.getRelatedDifferences().isEmpty()
+        && getComparison() instanceof GComparisonImpl) {
+      // The difference index may refer to differences of the match
+      ((GComparisonImpl) getComparison()).invalidateDifferenceIndex();
+    }
+  }
+
+  /**
+   * Return which of the given elements plays the given role, assuming that the
+   * third element plays the role which is neither role1_p nor role2_p
+   * @param role_p a non-null role
+   * @param element1_p a potentially null element
+   * @param role1_p the non-null role of element1_p
+   * @param element2_p a potentially null element
+   * @param role2_p the non-null role of element2_p, different from role1_p
+   * @param element3_p a potentially null element
+   * @return a potentially null element
+   * @generated NOT
+   */
+  private E select(Role role_p, E element1_p, Role role1_p, E element2_p,
+      Role role2_p, E element3_p) {
+    E result;
+    if (role_p == role1_p) {
+      result = element1_p;
+    } else if (role_p == role2_p) {
+      result = element2_p;
+    } else {
+      result = element3_p;
+    }
+    return result;
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.IMapping#size()
    * @generated NOT
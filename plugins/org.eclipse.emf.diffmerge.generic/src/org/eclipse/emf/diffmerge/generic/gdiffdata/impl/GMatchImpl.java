@@ -624,7 +624,12 @@ public abstract class GMatchImpl<E, A, R> extends GIdentifiedImpl
     assert difference_p != null;
     Collection<? extends IDifference<E>> differences = getModifiableRelatedDifferences(
         true);
-    if (!differences.contains(difference_p)) {
+    // Related differences are contained by their match, so membership is
+    // determined by their container without scanning the list
+    boolean isNew = difference_p instanceof EObject
+        ? ((EObject) difference_p).eContainer() != this
+        : !differences.contains(difference_p);
+    if (isNew) {
       ((Collection<IDifference<E>>) differences).add(difference_p); // Difference is supposed compatible
       if (difference_p instanceof IElementPresence) {
         setElementPresenceDifference((IElementPresence<E>) difference_p);
@@ -648,6 +653,11 @@ public abstract class GMatchImpl<E, A, R> extends GIdentifiedImpl
       } else if (difference_p instanceof IAttributeValuePresence<?>) {
         addAttributeValuePresence((IAttributeValuePresence<E>) difference_p);
       }
+      GComparison<E, A, R> comparison = getComparison();
+      if (comparison instanceof GComparisonImpl) {
+        ((GComparisonImpl<E, A, R>) comparison).differenceAdded(this,
+            difference_p);
+      }
     }
   }
 
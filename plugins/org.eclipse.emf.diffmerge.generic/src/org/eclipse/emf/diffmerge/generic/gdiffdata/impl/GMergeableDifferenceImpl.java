@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.EList;
@@ -25,6 +26,7 @@ import org.eclipse.emf.diffmerge.generic.api.diff.IMergeableDifference;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GComparison;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GMergeableDifference;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GdiffdataPackage;
+import org.eclipse.emf.diffmerge.generic.impl.helpers.DifferenceDependencyGraph;
 import org.eclipse.emf.diffmerge.structures.IEqualityBasedStructure;
 import org.eclipse.emf.diffmerge.structures.IEqualityTester;
 import org.eclipse.emf.diffmerge.structures.common.FArrayList;
@@ -32,6 +34,8 @@ import org.eclipse.emf.diffmerge.structures.common.FHashSet;
 import org.eclipse.emf.diffmerge.structures.common.FLinkedList;
 import org.eclipse.emf.diffmerge.structures.endo.AbstractEndorelation;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.impl.ENotificationImpl;
 import org.eclipse.emf.ecore.util.EDataTypeUniqueEList;
 import org.eclipse.emf.ecore.util.EObjectResolvingEList;
@@ -332,7 +336,7 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
-   * @generated
+   * @generated NOT
    */
   public void setMergeDestination(Role newMergeDestination) {
     Role oldMergeDestination = mergeDestination;
@@ -341,6 +345,18 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
       eNotify(new ENotificationImpl(this, Notification.SET,
           GdiffdataPackage.GMERGEABLE_DIFFERENCE__MERGE_DESTINATION,
           oldMergeDestination, mergeDestination));
+    if ((oldMergeDestination == null) != (newMergeDestination == null)) {
+      // Merge status changed, including through undo or rollback
+      GComparison<E, A, R> comparison = getComparison();
+      if (comparison instanceof GComparisonImpl) {
+        GComparisonImpl<E, A, R> comparisonImpl = (GComparisonImpl<E, A, R>) comparison;
+        if (newMergeDestination != null) {
+          comparisonImpl.differenceMerged(this);
+        } else {
+          comparisonImpl.differenceUnmerged(this);
+        }
+      }
+    }
   }
 
   /**
@@ -360,12 +376,11 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
-   * @generated
+   * @generated NOT
    */
   public EList<IMergeableDifference<E>> getExplicitDependenciesForTarget() {
     if (explicitDependenciesForTarget == null) {
-      explicitDependenciesForTarget = new EObjectResolvingEList<IMergeableDifference<E>>(
-          IMergeableDifference.class, this,
+      explicitDependenciesForTarget = new DependencyList<E>(this,
           GdiffdataPackage.GMERGEABLE_DIFFERENCE__EXPLICIT_DEPENDENCIES_FOR_TARGET);
     }
     return explicitDependenciesForTarget;
@@ -374,12 +389,11 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
-   * @generated
+   * @generated NOT
    */
   public EList<IMergeableDifference<E>> getExplicitDependenciesForReference() {
     if (explicitDependenciesForReference == null) {
-      explicitDependenciesForReference = new EObjectResolvingEList<IMergeableDifference<E>>(
-          IMergeableDifference.class, this,
+      explicitDependenciesForReference = new DependencyList<E>(this,
           GdiffdataPackage.GMERGEABLE_DIFFERENCE__EXPLICIT_DEPENDENCIES_FOR_REFERENCE);
     }
     return explicitDependenciesForReference;
@@ -388,12 +402,11 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
-   * @generated
+   * @generated NOT
    */
   public EList<IMergeableDifference<E>> getImplicitDependenciesForTarget() {
     if (implicitDependenciesForTarget == null) {
-      implicitDependenciesForTarget = new EObjectResolvingEList<IMergeableDifference<E>>(
-          IMergeableDifference.class, this,
+      implicitDependenciesForTarget = new DependencyList<E>(this,
           GdiffdataPackage.GMERGEABLE_DIFFERENCE__IMPLICIT_DEPENDENCIES_FOR_TARGET);
     }
     return implicitDependenciesForTarget;
@@ -402,12 +415,11 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
-   * @generated
+   * @generated NOT
    */
   public EList<IMergeableDifference<E>> getImplicitDependenciesForReference() {
     if (implicitDependenciesForReference == null) {
-      implicitDependenciesForReference = new EObjectResolvingEList<IMergeableDifference<E>>(
-          IMergeableDifference.class, this,
+      implicitDependenciesForReference = new DependencyList<E>(this,
           GdiffdataPackage.GMERGEABLE_DIFFERENCE__IMPLICIT_DEPENDENCIES_FOR_REFERENCE);
     }
     return implicitDependenciesForReference;
@@ -639,6 +651,20 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
     }
   }
 
+  /**
+   * Return the dependency graph shared by the differences of the comparison, if any
+   * @return a potentially null graph
+   * @generated NOT
+   */
+  protected DifferenceDependencyGraph<E> getDependencyGraph() {
+    DifferenceDependencyGraph<E> result = null;
+    GComparison<E, A, R> comparison = getComparison();
+    if (comparison instanceof GComparisonImpl) {
+      result = ((GComparisonImpl<E, A, R>) comparison).getDependencyGraph();
+    }
+    return result;
+  }
+
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.diff.IMergeableDifference#getDirectImpliesDependencies(org.eclipse.emf.diffmerge.generic.api.Role)
    * @generated NOT
@@ -745,6 +771,14 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
    */
   public final Collection<IMergeableDifference<E>> getImpliesDependencies(
       Role role_p) {
+    DifferenceDependencyGraph<E> graph = getDependencyGraph();
+    if (graph != null) {
+      Collection<IMergeableDifference<E>> shared = graph
+          .getImpliesDependencies(this, role_p);
+      if (shared != null) {
+        return shared;
+      }
+    }
     Collection<IMergeableDifference<E>> result = (role_p == Role.TARGET)
         ? _allImplicitDependenciesTarget
         : _allImplicitDependenciesReference;
@@ -772,6 +806,14 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
    */
   public final Collection<IMergeableDifference<E>> getRequiresDependencies(
       Role role_p) {
+    DifferenceDependencyGraph<E> graph = getDependencyGraph();
+    if (graph != null) {
+      Collection<IMergeableDifference<E>> shared = graph
+          .getRequiresDependencies(this, role_p);
+      if (shared != null) {
+        return shared;
+      }
+    }
     Collection<IMergeableDifference<E>> result = (role_p == Role.TARGET)
         ? _allExplicitDependenciesTarget
         : _allExplicitDependenciesReference;
@@ -922,6 +964,104 @@ public abstract class GMergeableDifferenceImpl<E, A, R> extends GIdentifiedImpl
     return result;
   }
 
+  /**
+   * A resolving list of differences which maintains an identity-based index of its
+   * elements, so that membership checks do not require scanning the list.
+   * Proxies are not indexed by their resolved form: when proxies are present,
+   * membership checks fall back to the default behavior.
+   * @generated NOT
+   */
+  protected static class DependencyList<E>
+      extends EObjectResolvingEList<IMergeableDifference<E>> {
+
+    /** The serial version ID */
+    private static final long serialVersionUID = 1L;
+
+    /** The non-null set of the elements of this list */
+    private final Set<Object> _index;
+
+    /** The number of proxies among the elements of this list */
+    private int _nbProxies;
+
+    /**
+     * Constructor
+     * @param owner_p the non-null difference which owns the list
+     * @param featureID_p the ID of the feature of the owner that holds the list
+     */
+    protected DependencyList(InternalEObject owner_p, int featureID_p) {
+      super(IMergeableDifference.class, owner_p, featureID_p);
+      _index = new FHashSet<Object>(IEqualityTester.BY_REFERENCE);
+      _nbProxies = 0;
+    }
+
+    /**
+     * @see org.eclipse.emf.ecore.util.EcoreEList#contains(java.lang.Object)
+     */
+    @Override
+    public boolean contains(Object object_p) {
+      boolean result = _index.contains(object_p);
+      if (!result && _nbProxies > 0) {
+        result = super.contains(object_p);
+      }
+      return result;
+    }
+
+    /**
+     * @see org.eclipse.emf.common.notify.impl.NotifyingListImpl#didAdd(int, java.lang.Object)
+     */
+    @Override
+    protected void didAdd(int index_p, IMergeableDifference<E> newObject_p) {
+      super.didAdd(index_p, newObject_p);
+      if (_index.add(newObject_p) && isProxy(newObject_p)) {
+        _nbProxies++;
+      }
+    }
+
+    /**
+     * @see org.eclipse.emf.common.notify.impl.NotifyingListImpl#didClear(int, java.lang.Object[])
+     */
+    @Override
+    protected void didClear(int size_p, Object[] oldObjects_p) {
+      super.didClear(size_p, oldObjects_p);
+      _index.clear();
+      _nbProxies = 0;
+    }
+
+    /**
+     * @see org.eclipse.emf.common.notify.impl.NotifyingListImpl#didRemove(int, java.lang.Object)
+     */
+    @Override
+    protected void didRemove(int index_p, IMergeableDifference<E> oldObject_p) {
+      super.didRemove(index_p, oldObject_p);
+      if (_index.remove(oldObject_p) && isProxy(oldObject_p)) {
+        _nbProxies--;
+      }
+    }
+
+    /**
+     * @see org.eclipse.emf.common.notify.impl.NotifyingListImpl#didSet(int, java.lang.Object, java.lang.Object)
+     */
+    @Override
+    protected void didSet(int index_p, IMergeableDifference<E> newObject_p,
+        IMergeableDifference<E> oldObject_p) {
+      super.didSet(index_p, newObject_p, oldObject_p);
+      if (_index.remove(oldObject_p) && isProxy(oldObject_p)) {
+        _nbProxies--;
+      }
+      if (_index.add(newObject_p) && isProxy(newObject_p)) {
+        _nbProxies++;
+      }
+    }
+
+    /**
+     * Return whether the given element is a proxy
+     * @param element_p a potentially null element
+     */
+    private boolean isProxy(Object element_p) {
+      return element_p instanceof EObject && ((EObject) element_p).eIsProxy();
+    }
+  }
+
   /**
    * A definition of inter-difference dependencies as a mathematical binary relation
    * over differences.
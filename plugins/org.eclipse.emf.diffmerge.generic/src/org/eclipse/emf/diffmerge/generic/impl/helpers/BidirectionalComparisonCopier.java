@@ -11,6 +11,8 @@
  **********************************************************************/
 package org.eclipse.emf.diffmerge.generic.impl.helpers;
 
+import java.util.Collection;
+
 import org.eclipse.emf.diffmerge.generic.api.IMapping;
 import org.eclipse.emf.diffmerge.generic.api.IMatch;
 import org.eclipse.emf.diffmerge.generic.api.Role;
@@ -73,4 +75,19 @@ public class BidirectionalComparisonCopier<E> {
     involvedCopier.completeReferences(mapping_p.getComparison());
   }
   
+  /**
+   * Complete the references between completed elements in the given role, knowing
+   * that only the given matches have been completed since references were last completed
+   * @param mapping_p a non-null mapping
+   * @param role_p a role which is TARGET or REFERENCE
+   * @param newlyCompleted_p a non-null, potentially empty collection of completed matches
+   */
+  public void completeReferences(IMapping.Editable<E> mapping_p, Role role_p,
+      Collection<? extends IMatch<E>> newlyCompleted_p) {
+    UnidirectionalComparisonCopier<E> involvedCopier =
+      (role_p == Role.TARGET)? _referenceToTargetCopier:
+        _targetToReferenceCopier;
+    involvedCopier.completeReferences(mapping_p.getComparison(), newlyCompleted_p);
+  }
+  
 }
@@ -15,14 +15,20 @@ package org.eclipse.emf.diffmerge.generic.impl.helpers;
 import static org.eclipse.emf.diffmerge.generic.api.Role.ANCESTOR;
 import static org.eclipse.emf.diffmerge.generic.api.Role.REFERENCE;
 import static org.eclipse.emf.diffmerge.generic.api.Role.TARGET;
-import static org.eclipse.emf.diffmerge.structures.IEqualityTester.BY_REFERENCE;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -69,6 +75,12 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
   /** Whether the scope on the TARGET side is read-only */
   protected final boolean _isTargetScopeReadOnly;
   
+  /** The maximal number of threads for detecting differences, 1 meaning sequential */
+  protected final int _parallelism;
+  
+  /** The buffers of difference creations which are deferred by the current thread, if any */
+  private final ThreadLocal<List<Runnable>> _deferredCreations;
+  
   
   /**
    * Constructor based on a comparison with a predefined mapping
@@ -78,12 +90,28 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
    */
   public DiffOperation(IComparison.Editable<E> comparison_p, IDiffPolicy<E> diffPolicy_p,
       IMergePolicy<E> mergePolicy_p) {
+    this(comparison_p, diffPolicy_p, mergePolicy_p, 1);
+  }
+  
+  /**
+   * Constructor based on a comparison with a predefined mapping and a level of parallelism.
+   * If more than one thread is allowed, differences are detected in parallel on a fork-join
+   * pool and then created sequentially in the same order as in the sequential case.
+   * @param comparison_p a non-null comparison whose mapping is already built
+   * @param diffPolicy_p a non-null diff policy
+   * @param mergePolicy_p a non-null merge policy
+   * @param parallelism_p the strictly positive maximal number of threads
+   */
+  public DiffOperation(IComparison.Editable<E> comparison_p, IDiffPolicy<E> diffPolicy_p,
+      IMergePolicy<E> mergePolicy_p, int parallelism_p) {
     super();
     _comparison = comparison_p;
     _diffPolicy = diffPolicy_p;
     _mergePolicy = mergePolicy_p;
     _isReferenceScopeReadOnly = getComparison().getScope(REFERENCE).isReadOnly();
     _isTargetScopeReadOnly = getComparison().getScope(TARGET).isReadOnly();
+    _parallelism = Math.max(1, parallelism_p);
+    _deferredCreations = new ThreadLocal<List<Runnable>>();
   }
   
   /**
@@ -131,11 +159,25 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
    * @param value_p a non-null value
    * @param role_p a non-null role which is TARGET or REFERENCE
    * @param isOrder_p whether the value presence is solely due to ordering
-   * @return a non-null attribute value presence
+   * @return a non-null attribute value presence, or null if creation is deferred
+   *         because differences are being detected in parallel
    */
   protected IAttributeValuePresence<E> createAttributeValueDifference(
-      IMatch<E> elementMatch_p, Object attribute_p, Object value_p,
-      Role role_p, boolean isOrder_p) {
+      final IMatch<E> elementMatch_p, final Object attribute_p, final Object value_p,
+      final Role role_p, final boolean isOrder_p) {
+    List<Runnable> deferred = _deferredCreations.get();
+    if (deferred != null) {
+      deferred.add(new Runnable() {
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+          createAttributeValueDifference(
+              elementMatch_p, attribute_p, value_p, role_p, isOrder_p);
+        }
+      });
+      return null;
+    }
     IAttributeValuePresence<E> result = getComparison().newAttributeValuePresence(
             elementMatch_p, attribute_p, value_p, role_p, isOrder_p);
     IAttributeValuePresence<E> symmetrical = result.getSymmetrical();
@@ -152,6 +194,10 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
    * Create differences based on the mapping between the model scopes compared
    */
   protected void createDifferences() {
+    if (isParallel()) {
+      createDifferencesInParallel();
+      return;
+    }
     for (IMatch<E> match : getMapping().getContents()) {
       checkProgress();
       if (getDiffPolicy().coverMatch(match)) {
@@ -161,6 +207,45 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
     }
   }
   
+  /**
+   * Create differences based on the mapping between the model scopes compared,
+   * detecting the differences of matches in parallel through createTechnicalDifferences.
+   * Workers only read the scopes and the mapping: the creations of differences they
+   * detect are buffered per match, then executed in the order of the matches in the
+   * mapping, so that the result is the same as in the sequential case.
+   * The elements of the matches are read once beforehand in the current thread, so that
+   * getters which resolve proxies and notify it do so before workers start.
+   */
+  protected void createDifferencesInParallel() {
+    Collection<IMatch<E>> contents = getMapping().getContents();
+    List<IMatch<E>> matches = new ArrayList<IMatch<E>>(contents.size());
+    for (IMatch<E> match : contents) {
+      for (Role role : Role.values()) {
+        match.get(role);
+      }
+      matches.add(match);
+    }
+    List<List<Runnable>> creations = new ArrayList<List<Runnable>>(
+        Collections.<List<Runnable>>nCopies(matches.size(), null));
+    ForkJoinPool pool = new ForkJoinPool(_parallelism);
+    try {
+      pool.invoke(new DetectionTask(matches, creations, 0, matches.size()));
+    } finally {
+      pool.shutdown();
+    }
+    for (int i = 0; i < matches.size(); i++) {
+      checkProgress();
+      List<Runnable> matchCreations = creations.get(i);
+      if (matchCreations != null) {
+        for (Runnable creation : matchCreations) {
+          creation.run();
+        }
+        creations.set(i, null);
+      }
+      getMonitor().worked(1);
+    }
+  }
+  
   /**
    * Create the reference order difference corresponding to the given link
    * (holder, reference, value)
@@ -186,11 +271,25 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
    * @param valueMatch_p an optional match, which cannot be null if value_p or reference_p is null
    * @param role_p a non-null role which is TARGET or REFERENCE
    * @param isOrder_p whether the value presence is solely due to ordering
-   * @return a non-null reference value presence
+   * @return a non-null reference value presence, or null if creation is deferred
+   *         because differences are being detected in parallel
    */
   protected IReferenceValuePresence<E> createReferenceValueDifference(
-      IMatch<E> elementMatch_p, Object reference_p, E value_p,
-      IMatch<E> valueMatch_p, Role role_p, boolean isOrder_p) {
+      final IMatch<E> elementMatch_p, final Object reference_p, final E value_p,
+      final IMatch<E> valueMatch_p, final Role role_p, final boolean isOrder_p) {
+    List<Runnable> deferred = _deferredCreations.get();
+    if (deferred != null) {
+      deferred.add(new Runnable() {
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+          createReferenceValueDifference(
+              elementMatch_p, reference_p, value_p, valueMatch_p, role_p, isOrder_p);
+        }
+      });
+      return null;
+    }
     IReferenceValuePresence<E> result = getComparison().newReferenceValuePresence(
         elementMatch_p, reference_p, value_p, valueMatch_p, role_p, isOrder_p);
     setReferencedValueDependencies(result);
@@ -299,6 +398,11 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
     E element2 = match_p.get(role2_p);
     List<?> values1 = scope1.getAttributeValues(element1, attribute_p);
     List<?> values2 = scope2.getAttributeValues(element2, attribute_p);
+    if (scopeOfAttribute.mIsManyAttribute(attribute_p) &&
+        getDiffPolicy().considerEqualByKey(attribute_p, scopeOfAttribute)) {
+      return detectAttributeDifferencesByKey(match_p, attribute_p, values1, values2,
+          role1_p, role2_p, scopeOfAttribute, create_p);
+    }
     List<Object> remainingValues1 = new ArrayList<Object>(values1);
     List<Object> remainingValues2 = new ArrayList<Object>(values2);
     boolean checkOrder = scopeOfAttribute.mIsManyAttribute(attribute_p) &&
@@ -347,6 +451,104 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
     return result;
   }
   
+  /**
+   * Detect the differences related to the given many-valued attribute for the given match
+   * and the given roles, given that the diff policy allows aligning values by key.
+   * Values are paired in linear time through a multiset of keys which associates
+   * every key with the positions of the corresponding values in role2_p, in ascending order.
+   * The result is the same as the one of the default alignment algorithm.
+   * @see IDiffPolicy#considerEqualByKey(Object, ITreeDataScope)
+   * @param match_p a non-null match which is non-partial on the given roles
+   * @param attribute_p a non-null, many-valued attribute
+   * @param values1_p the non-null values of the attribute in role1_p
+   * @param values2_p the non-null values of the attribute in role2_p
+   * @param role1_p a non-null role
+   * @param role2_p a non-null role different from role1_p
+   * @param scopeOfAttribute_p the non-null scope the attribute is from
+   * @param create_p whether differences must actually be created if the roles are TARGET and REFERENCE
+   * @return whether at least one difference was detected
+   */
+  protected boolean detectAttributeDifferencesByKey(IMatch<E> match_p, Object attribute_p,
+      List<?> values1_p, List<?> values2_p, Role role1_p, Role role2_p,
+      ITreeDataScope<E> scopeOfAttribute_p, boolean create_p) {
+    boolean result = false;
+    IDiffPolicy<E> diffPolicy = getDiffPolicy();
+    int size1 = values1_p.size();
+    int size2 = values2_p.size();
+    // Multiset of values in role2_p: first position per key, then next position per position
+    Map<Object, Integer> firstPositions2 = new HashMap<Object, Integer>(size2 * 4 / 3 + 1);
+    int[] nextPositions2 = new int[size2];
+    for (int j = size2 - 1; j >= 0; j--) {
+      Object key = diffPolicy.getAttributeValueKey(
+          values2_p.get(j), attribute_p, scopeOfAttribute_p);
+      Integer next = firstPositions2.put(key, Integer.valueOf(j));
+      nextPositions2[j] = (next == null)? -1: next.intValue();
+    }
+    boolean[] matched1 = new boolean[size1];
+    boolean[] matched2 = new boolean[size2];
+    boolean checkOrder = diffPolicy.considerOrderedAttribute(attribute_p, scopeOfAttribute_p);
+    int maxIndex = -1;
+    for (int i = 0; i < size1; i++) {
+      Object value1 = values1_p.get(i);
+      Object key = diffPolicy.getAttributeValueKey(value1, attribute_p, scopeOfAttribute_p);
+      Integer position2 = firstPositions2.get(key);
+      if (position2 != null) {
+        int j = position2.intValue();
+        int next = nextPositions2[j];
+        if (next < 0) {
+          firstPositions2.remove(key);
+        } else {
+          firstPositions2.put(key, Integer.valueOf(next));
+        }
+        matched1[i] = true;
+        matched2[j] = true;
+        if (checkOrder) {
+          // Positions in role2_p of the values matched so far are increasing
+          // until the first ordering difference
+          if (j < maxIndex) {
+            // Ordering difference
+            if (!create_p) {
+              return true;
+            }
+            createAttributeOrderDifference(
+                match_p, attribute_p, value1, values2_p.get(j), role1_p, role2_p);
+            result = true;
+            checkOrder = false;
+          } else {
+            maxIndex = j;
+          }
+        }
+      }
+    }
+    ITreeDataScope<E> scope1 = getComparison().getScope(role1_p);
+    for (int i = 0; i < size1; i++) {
+      if (!matched1[i]) {
+        Object remainingValue1 = values1_p.get(i);
+        if (diffPolicy.coverValue(remainingValue1, attribute_p, scope1)) {
+          if (!create_p) {
+            return true;
+          }
+          createAttributeValueDifference(match_p, attribute_p, remainingValue1, role1_p, false);
+          result = true;
+        }
+      }
+    }
+    ITreeDataScope<E> scope2 = getComparison().getScope(role2_p);
+    for (int j = 0; j < size2; j++) {
+      if (!matched2[j]) {
+        Object remainingValue2 = values2_p.get(j);
+        if (diffPolicy.coverValue(remainingValue2, attribute_p, scope2)) {
+          if (!create_p) {
+            return true;
+          }
+          createAttributeValueDifference(match_p, attribute_p, remainingValue2, role2_p, false);
+          result = true;
+        }
+      }
+    }
+    return result;
+  }
+  
   /**
    * Detect technical differences corresponding to the given non-partial
    * match between the given roles, focusing on the content of the elements
@@ -421,7 +623,10 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
     E element2 = match_p.get(role2_p);
     List<E> values1 = scope1.getReferenceValues(element1, reference_p);
     List<E> values2 = scope2.getReferenceValues(element2, reference_p);
-    List<E> remainingValues2 = new FArrayList<E>(values2, BY_REFERENCE);
+    if (values1.isEmpty() && values2.isEmpty()) {
+      return false;
+    }
+    RemainingValues<E> remainingValues2 = new RemainingValues<E>(values2);
     boolean checkOrder = scopeOfReference.mIsManyReference(reference_p) &&
         diffPolicy.considerOrderedReference(reference_p, scopeOfReference);
     int maxIndex = -1;
@@ -447,6 +652,8 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
               reference_p, matchValue2, remainingValues2, outsideScope1, scopeOfReference);
           isIsolated = index < 0;
           if (checkOrder && !isIsolated) {
+            // Original positions of the values found so far are increasing
+            // until the first ordering difference
             if (index < maxIndex) {
               // Ordering difference
               if (!create_p) {
@@ -471,16 +678,14 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
           result = true;
         } else {
           // Remove from the remaining values in role2_p
-          if (index > -1) {
-            remainingValues2.remove(index);
-          } else {
-            remainingValues2.remove(matchValue2);
-          }
+          remainingValues2.remove(index);
         }
       } // Else value1 is out of scope and not covered as such
     }
     // For every remaining value in role2_p, create a difference if covered
-    for (E remainingValue2 : remainingValues2) {
+    for (int i = remainingValues2.nextRemaining(0); i >= 0;
+        i = remainingValues2.nextRemaining(i + 1)) {
+      E remainingValue2 = remainingValues2.get(i);
       IMatch<E> valueMatch2 = getMapping().getMatchFor(remainingValue2, role2_p);
       boolean outsideReferenceScope = valueMatch2 == null;
       boolean coverReferenceValue =
@@ -500,6 +705,33 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
     return result;
   }
   
+  /**
+   * Return the original position of the given reference value among the given remaining
+   * values, given that it should or not be considered as an out-of-scope value
+   * @param reference_p a non-null reference
+   * @param value_p a non-null element
+   * @param values_p a non-null set of remaining values
+   * @param outsideScope_p whether the value is out-of-scope
+   * @param scope_p the non-null scope the values belong to
+   * @return a positive int or -1 if the element is not found among the remaining values
+   */
+  protected int detectReferenceValueAmong(Object reference_p, E value_p,
+      RemainingValues<E> values_p, boolean outsideScope_p, ITreeDataScope<E> scope_p) {
+    int result = values_p.indexOf(value_p);
+    if (result == -1 && outsideScope_p) {
+      // Outside scope
+      IDiffPolicy<E> diffPolicy = getDiffPolicy();
+      for (int i = values_p.nextRemaining(0); i >= 0; i = values_p.nextRemaining(i + 1)) {
+        if (diffPolicy.considerEqualOutOfScope(
+            value_p, values_p.get(i), reference_p, scope_p)) {
+          result = i;
+          break;
+        }
+      }
+    }
+    return result;
+  }
+  
   /**
    * Return the position of the given reference value among the given list of values,
    * given that it should or not be considered as an out-of-scope value
@@ -592,10 +824,23 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
    * Create and return the element presence difference corresponding to
    * the given partial match, if allowed. If it already exists, just return it.
    * @param match_p a non-null, partial match
-   * @return a potentially null element presence
+   * @return a potentially null element presence, which is null in particular if
+   *         creation is deferred because differences are being detected in parallel
    */
-  protected IElementPresence<E> getOrCreateElementPresence(IMatch<E> match_p) {
+  protected IElementPresence<E> getOrCreateElementPresence(final IMatch<E> match_p) {
     assert match_p != null && match_p.isPartial();
+    List<Runnable> deferred = _deferredCreations.get();
+    if (deferred != null) {
+      deferred.add(new Runnable() {
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+          getOrCreateElementPresence(match_p);
+        }
+      });
+      return null;
+    }
     IElementPresence<E> result = match_p.getElementPresenceDifference();
     if (result == null && getDiffPolicy().coverMatch(match_p)) {
       Role presenceRole = match_p.getUncoveredRole().opposite();
@@ -617,6 +862,24 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
     return 1 + getMapping().size();
   }
   
+  /**
+   * Return whether differences must be detected in parallel, which requires
+   * that more than one thread be allowed and that all the scopes compared
+   * support concurrent reads
+   */
+  protected boolean isParallel() {
+    if (_parallelism <= 1) {
+      return false;
+    }
+    for (Role role : Role.values()) {
+      ITreeDataScope<E> scope = getComparison().getScope(role);
+      if (scope != null && !scope.supportsConcurrentReads()) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
   /**
    * Return whether the scope of the given role is read-only.
    * If no scope has the given role, then true is returned.
@@ -1089,6 +1352,167 @@ public class DiffOperation<E> extends AbstractExpensiveOperation {
   }
   
   
+  /**
+   * A fork-join task that detects the differences of a range of matches
+   * and buffers their creation per match.
+   */
+  @SuppressWarnings("serial")
+  protected class DetectionTask extends RecursiveAction {
+    /** The number of matches below which a task is not split */
+    private static final int SPLIT_THRESHOLD = 64;
+    /** The non-null matches to process */
+    private final List<IMatch<E>> _matches;
+    /** The non-null buffers of difference creations, by index of match */
+    private final List<List<Runnable>> _creations;
+    /** The index of the first match to process, inclusive */
+    private final int _from;
+    /** The index of the last match to process, exclusive */
+    private final int _to;
+    /**
+     * Constructor
+     * @param matches_p the non-null matches
+     * @param creations_p a non-null list of the same size as matches_p for the buffers,
+     *          whose elements are only set at distinct indexes
+     * @param from_p the index of the first match to process, inclusive
+     * @param to_p the index of the last match to process, exclusive
+     */
+    public DetectionTask(List<IMatch<E>> matches_p, List<List<Runnable>> creations_p,
+        int from_p, int to_p) {
+      _matches = matches_p;
+      _creations = creations_p;
+      _from = from_p;
+      _to = to_p;
+    }
+    /**
+     * @see java.util.concurrent.RecursiveAction#compute()
+     */
+    @Override
+    protected void compute() {
+      if (_to - _from > SPLIT_THRESHOLD) {
+        int middle = (_from + _to) >>> 1;
+        invokeAll(new DetectionTask(_matches, _creations, _from, middle),
+            new DetectionTask(_matches, _creations, middle, _to));
+        return;
+      }
+      for (int i = _from; i < _to; i++) {
+        if (getMonitor().isCanceled()) {
+          return;
+        }
+        IMatch<E> match = _matches.get(i);
+        if (getDiffPolicy().coverMatch(match)) {
+          List<Runnable> buffer = new ArrayList<Runnable>();
+          _deferredCreations.set(buffer);
+          try {
+            createTechnicalDifferences(match);
+          } finally {
+            _deferredCreations.remove();
+          }
+          if (!buffer.isEmpty()) {
+            _creations.set(i, buffer);
+          }
+        }
+      }
+    }
+  }
+  
+  /**
+   * A view on a list of reference values from which values can be removed without
+   * shifting positions. Removals are tracked by a bit set and identical values are
+   * retrieved through an identity-based index of their positions, so that aligning
+   * two lists of values takes linear time.
+   * @param <E> The type of data elements.
+   */
+  protected static class RemainingValues<E> {
+    /** The size below which values are searched linearly instead of being indexed */
+    private static final int INDEXING_THRESHOLD = 8;
+    /** The non-null original list of values */
+    private final List<E> _values;
+    /** The non-null set of positions of removed values */
+    private final BitSet _removed;
+    /** The potentially null identity-based index from values to their first remaining position */
+    private Map<E, Integer> _firstPositions;
+    /** The potentially null positions of identical values, by position: -1 if none */
+    private int[] _nextPositions;
+    /**
+     * Constructor
+     * @param values_p the non-null list of values, which must not change while this object is used
+     */
+    public RemainingValues(List<E> values_p) {
+      _values = values_p;
+      _removed = new BitSet(values_p.size());
+      _firstPositions = null;
+      _nextPositions = null;
+    }
+    /**
+     * Return the value at the given original position
+     * @param index_p a position between 0 and the size of the original list, excluded
+     * @return a potentially null value
+     */
+    public E get(int index_p) {
+      return _values.get(index_p);
+    }
+    /**
+     * Return the original position of the first remaining value which is identical
+     * to the given one
+     * @param value_p a potentially null object
+     * @return a positive int or -1 if the value is not among the remaining values
+     */
+    public int indexOf(Object value_p) {
+      int size = _values.size();
+      if (size <= INDEXING_THRESHOLD) {
+        for (int i = nextRemaining(0); i >= 0; i = nextRemaining(i + 1)) {
+          if (_values.get(i) == value_p) {
+            return i;
+          }
+        }
+        return -1;
+      }
+      if (_firstPositions == null) {
+        _firstPositions = new IdentityHashMap<E, Integer>(size);
+        _nextPositions = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+          Integer next = _firstPositions.put(_values.get(i), Integer.valueOf(i));
+          _nextPositions[i] = (next == null)? -1: next.intValue();
+        }
+      }
+      int result = -1;
+      Integer first = _firstPositions.get(value_p);
+      if (first != null) {
+        result = first.intValue();
+        while (result >= 0 && _removed.get(result)) {
+          result = _nextPositions[result];
+        }
+        if (result != first.intValue()) {
+          // Skip removed positions in future lookups
+          @SuppressWarnings("unchecked")
+          E key = (E)value_p;
+          if (result < 0) {
+            _firstPositions.remove(key);
+          } else {
+            _firstPositions.put(key, Integer.valueOf(result));
+          }
+        }
+      }
+      return result;
+    }
+    /**
+     * Return the original position of the first remaining value from the given position, inclusive
+     * @param from_p a positive int or 0
+     * @return a positive int or -1 if there is no remaining value from the given position
+     */
+    public int nextRemaining(int from_p) {
+      int result = _removed.nextClearBit(from_p);
+      return (result < _values.size())? result: -1;
+    }
+    /**
+     * Remove the value at the given original position
+     * @param index_p a position between 0 and the size of the original list, excluded
+     */
+    public void remove(int index_p) {
+      _removed.set(index_p);
+    }
+  }
+  
   /**
    * A trivial data structure that associates an object and an index.
    * Either the object is not null and the index is greater than or equal to 0,
@@ -0,0 +1,530 @@
+/*********************************************************************
+ * Copyright (c) 2026 agent
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ **********************************************************************/
+package org.eclipse.emf.diffmerge.generic.impl.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.diffmerge.generic.api.Role;
+import org.eclipse.emf.diffmerge.generic.api.diff.IDifference;
+import org.eclipse.emf.diffmerge.generic.api.diff.IMergeableDifference;
+
+
+/**
+ * A graph of the merge dependencies between a fixed set of differences which
+ * answers transitive dependency queries for all the differences at once.
+ * For every role and every kind of dependency (requires, implies), the strongly
+ * connected components of the dependency graph are computed once and the condensed,
+ * acyclic graph is shared by all the queries. Closures are thus never stored: they are
+ * obtained by a traversal of the condensed graph whose cost is proportional to their size.
+ * Transitive dependencies are returned so that, as far as cycles allow, every
+ * difference comes after the differences it depends upon.
+ * The dependencies between differences are assumed not to change once the graph
+ * has been created.
+ * 
+ * @param <E> The type of data elements.
+ * 
+ * @see IMergeableDifference#getRequiresDependencies(Role)
+ * @see IMergeableDifference#getImpliesDependencies(Role)
+ * @author agent
+ */
+public class DifferenceDependencyGraph<E> {
+  
+  /** The non-null list of the nodes of the graph, indexed by ordinal */
+  private final List<IMergeableDifference<E>> _nodes;
+  
+  /** The non-null map from nodes to their ordinals */
+  private final Map<IMergeableDifference<E>, Integer> _ordinals;
+  
+  /** The non-null list of the 4 layers of the graph per role and kind of dependencies,
+   * which are lazily built */
+  private final List<DependencyLayer> _layers;
+  
+  /** The marks on nodes during traversals */
+  private final int[] _nodeMarks;
+  
+  /** The last mark used during traversals */
+  private int _currentMark;
+  
+  
+  /**
+   * Constructor
+   * @param differences_p the non-null differences the graph is about: their dependencies
+   *          are added transitively
+   */
+  @SuppressWarnings("unchecked")
+  public DifferenceDependencyGraph(Iterable<? extends IDifference<E>> differences_p) {
+    _nodes = new ArrayList<IMergeableDifference<E>>();
+    _ordinals = new IdentityHashMap<IMergeableDifference<E>, Integer>();
+    for (IDifference<E> difference : differences_p) {
+      if (difference instanceof IMergeableDifference<?>) {
+        addNode((IMergeableDifference<E>)difference);
+      }
+    }
+    // Nodes are added at the end of the list, which acts as a worklist
+    for (int i = 0; i < _nodes.size(); i++) {
+      IMergeableDifference<E> node = _nodes.get(i);
+      for (Role role : new Role[] {Role.TARGET, Role.REFERENCE}) {
+        for (IMergeableDifference<E> required : node.getDirectRequiresDependencies(role)) {
+          addNode(required);
+        }
+        for (IMergeableDifference<E> implied : node.getDirectImpliesDependencies(role)) {
+          addNode(implied);
+        }
+      }
+    }
+    _layers = new ArrayList<DependencyLayer>(Collections.<DependencyLayer>nCopies(4, null));
+    _nodeMarks = new int[_nodes.size()];
+    _currentMark = 0;
+  }
+  
+  /**
+   * Register the given difference as a node of the graph if it is not already
+   * @param difference_p a non-null difference
+   */
+  private void addNode(IMergeableDifference<E> difference_p) {
+    if (!_ordinals.containsKey(difference_p)) {
+      _ordinals.put(difference_p, Integer.valueOf(_nodes.size()));
+      _nodes.add(difference_p);
+    }
+  }
+  
+  /**
+   * Return the transitive closure of the dependencies of the given kind, in the given
+   * role, of the given nodes, excluding these nodes
+   * @param ordinals_p the non-null, non-empty ordinals of the nodes to start from
+   * @param role_p TARGET or REFERENCE
+   * @param explicit_p whether the dependencies are the requires or implies ones
+   * @return a non-null, potentially empty, modifiable list
+   */
+  protected List<IMergeableDifference<E>> getClosure(int[] ordinals_p, Role role_p,
+      boolean explicit_p) {
+    return getClosure(ordinals_p, role_p, explicit_p, false);
+  }
+  
+  /**
+   * Return the transitive closure of the dependencies of the given kind, in the given
+   * role, of the given nodes
+   * @param ordinals_p the non-null ordinals of the nodes to start from
+   * @param role_p TARGET or REFERENCE
+   * @param explicit_p whether the dependencies are the requires or implies ones
+   * @param includeSources_p whether the nodes to start from must be part of the result
+   * @return a non-null, potentially empty, modifiable list
+   */
+  protected List<IMergeableDifference<E>> getClosure(int[] ordinals_p, Role role_p,
+      boolean explicit_p, boolean includeSources_p) {
+    DependencyLayer layer = getLayer(role_p, explicit_p);
+    int sourceMark = nextMark();
+    int componentMark = layer.nextMark();
+    int[] reached = new int[Math.min(16, layer._nbComponents)];
+    int nbReached = 0;
+    for (int ordinal : ordinals_p) {
+      _nodeMarks[ordinal] = sourceMark;
+      int component = layer._componentOf[ordinal];
+      if (layer._componentMarks[component] != componentMark) {
+        layer._componentMarks[component] = componentMark;
+        reached = append(reached, nbReached++, component);
+      }
+    }
+    // The reached components serve as a worklist
+    for (int i = 0; i < nbReached; i++) {
+      int component = reached[i];
+      for (int j = layer._successorOffsets[component];
+          j < layer._successorOffsets[component + 1]; j++) {
+        int successor = layer._successors[j];
+        if (layer._componentMarks[successor] != componentMark) {
+          layer._componentMarks[successor] = componentMark;
+          reached = append(reached, nbReached++, successor);
+        }
+      }
+    }
+    // Components are numbered so that dependencies come first
+    Arrays.sort(reached, 0, nbReached);
+    List<IMergeableDifference<E>> result = new ArrayList<IMergeableDifference<E>>();
+    for (int i = 0; i < nbReached; i++) {
+      int component = reached[i];
+      for (int j = layer._memberOffsets[component];
+          j < layer._memberOffsets[component + 1]; j++) {
+        int member = layer._members[j];
+        if (includeSources_p || _nodeMarks[member] != sourceMark) {
+          result.add(_nodes.get(member));
+        }
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Return the transitive implies dependencies of the given difference in the given role,
+   * or null if the difference does not belong to this graph
+   * @see IMergeableDifference#getImpliesDependencies(Role)
+   * @param difference_p a non-null difference
+   * @param role_p TARGET or REFERENCE
+   * @return a potentially null, unmodifiable list
+   */
+  public synchronized List<IMergeableDifference<E>> getImpliesDependencies(
+      IMergeableDifference<E> difference_p, Role role_p) {
+    List<IMergeableDifference<E>> result = null;
+    Integer ordinal = _ordinals.get(difference_p);
+    if (ordinal != null) {
+      List<IMergeableDifference<E>> required = getRequiresDependencies(difference_p, role_p);
+      int[] sources = new int[required.size() + 1];
+      sources[0] = ordinal.intValue();
+      int i = 1;
+      for (IMergeableDifference<E> current : required) {
+        sources[i++] = _ordinals.get(current).intValue();
+      }
+      result = Collections.unmodifiableList(getClosure(sources, role_p, false));
+    }
+    return result;
+  }
+  
+  /**
+   * Return the layer for the given role and kind of dependencies, building it if needed
+   * @param role_p TARGET or REFERENCE
+   * @param explicit_p whether the dependencies are the requires or implies ones
+   * @return a non-null layer
+   */
+  protected DependencyLayer getLayer(Role role_p, boolean explicit_p) {
+    int index = (role_p == Role.TARGET? 0: 2) + (explicit_p? 0: 1);
+    DependencyLayer result = _layers.get(index);
+    if (result == null) {
+      result = new DependencyLayer(role_p, explicit_p);
+      _layers.set(index, result);
+    }
+    return result;
+  }
+  
+  /**
+   * Return the given differences in an order in which they can be merged in the given
+   * role: as far as cycles allow, every difference comes after the differences it
+   * transitively requires among the given ones. Differences which do not belong
+   * to this graph come last, in their original order.
+   * @param differences_p a non-null collection of differences
+   * @param role_p TARGET or REFERENCE
+   * @return a non-null, potentially empty, modifiable list without duplicates
+   */
+  public synchronized List<IMergeableDifference<E>> getMergeOrder(
+      Collection<? extends IMergeableDifference<E>> differences_p, Role role_p) {
+    List<IMergeableDifference<E>> result =
+        new ArrayList<IMergeableDifference<E>>(differences_p.size());
+    List<IMergeableDifference<E>> unknown = new ArrayList<IMergeableDifference<E>>();
+    int[] sources = new int[differences_p.size()];
+    int nbSources = 0;
+    int selectedMark = nextMark();
+    for (IMergeableDifference<E> difference : differences_p) {
+      Integer ordinal = _ordinals.get(difference);
+      if (ordinal == null) {
+        if (!unknown.contains(difference)) {
+          unknown.add(difference);
+        }
+      } else if (_nodeMarks[ordinal.intValue()] != selectedMark) {
+        _nodeMarks[ordinal.intValue()] = selectedMark;
+        sources[nbSources++] = ordinal.intValue();
+      }
+    }
+    if (nbSources > 0) {
+      List<IMergeableDifference<E>> closure = getClosure(
+          Arrays.copyOf(sources, nbSources), role_p, true, true);
+      // The closure is computed with fresh marks, so selected nodes are marked again
+      int mark = nextMark();
+      for (int i = 0; i < nbSources; i++) {
+        _nodeMarks[sources[i]] = mark;
+      }
+      for (IMergeableDifference<E> current : closure) {
+        if (_nodeMarks[_ordinals.get(current).intValue()] == mark) {
+          result.add(current);
+        }
+      }
+    }
+    result.addAll(unknown);
+    return result;
+  }
+  
+  /**
+   * Return the transitive requires dependencies of the given difference in the given role,
+   * or null if the difference does not belong to this graph
+   * @see IMergeableDifference#getRequiresDependencies(Role)
+   * @param difference_p a non-null difference
+   * @param role_p TARGET or REFERENCE
+   * @return a potentially null, unmodifiable list
+   */
+  public synchronized List<IMergeableDifference<E>> getRequiresDependencies(
+      IMergeableDifference<E> difference_p, Role role_p) {
+    List<IMergeableDifference<E>> result = null;
+    Integer ordinal = _ordinals.get(difference_p);
+    if (ordinal != null) {
+      List<IMergeableDifference<E>> closure = getClosure(
+          new int[] {ordinal.intValue()}, role_p, true);
+      // Differences which are implied by others need not be merged explicitly
+      DependencyLayer implicitLayer = getLayer(role_p, false);
+      int impliedMark = nextMark();
+      for (IMergeableDifference<E> current : closure) {
+        int currentOrdinal = _ordinals.get(current).intValue();
+        for (int j = implicitLayer._targetOffsets[currentOrdinal];
+            j < implicitLayer._targetOffsets[currentOrdinal + 1]; j++) {
+          _nodeMarks[implicitLayer._targets[j]] = impliedMark;
+        }
+      }
+      result = new ArrayList<IMergeableDifference<E>>(closure.size());
+      for (IMergeableDifference<E> current : closure) {
+        if (_nodeMarks[_ordinals.get(current).intValue()] != impliedMark) {
+          result.add(current);
+        }
+      }
+      result = Collections.unmodifiableList(result);
+    }
+    return result;
+  }
+  
+  /**
+   * Return the direct dependencies of the given node in the given role
+   * @param node_p a non-null node
+   * @param role_p TARGET or REFERENCE
+   * @param explicit_p whether the dependencies are the requires or implies ones
+   * @return a non-null, potentially empty collection which may contain duplicates
+   */
+  protected Collection<IMergeableDifference<E>> getDirectDependencies(
+      IMergeableDifference<E> node_p, Role role_p, boolean explicit_p) {
+    Collection<IMergeableDifference<E>> result;
+    if (explicit_p) {
+      // A difference requires what the differences it implies require
+      result = new ArrayList<IMergeableDifference<E>>(
+          node_p.getDirectRequiresDependencies(role_p));
+      for (IMergeableDifference<E> implied : node_p.getDirectImpliesDependencies(role_p)) {
+        result.addAll(implied.getDirectRequiresDependencies(role_p));
+      }
+    } else {
+      result = node_p.getDirectImpliesDependencies(role_p);
+    }
+    return result;
+  }
+  
+  /**
+   * Return a fresh mark for nodes
+   * @return a non-zero int
+   */
+  private int nextMark() {
+    _currentMark++;
+    if (_currentMark == 0) {
+      Arrays.fill(_nodeMarks, 0);
+      _currentMark = 1;
+    }
+    return _currentMark;
+  }
+  
+  /**
+   * Set the given value at the given position in the given array, growing it if needed
+   * @param array_p a non-null array
+   * @param position_p a positive int or 0 which is at most the length of the array
+   * @param value_p an arbitrary int
+   * @return array_p or a larger copy of it
+   */
+  static int[] append(int[] array_p, int position_p, int value_p) {
+    int[] result = array_p;
+    if (position_p >= result.length) {
+      result = Arrays.copyOf(result, Math.max(16, 2 * result.length));
+    }
+    result[position_p] = value_p;
+    return result;
+  }
+  
+  
+  /**
+   * The graph of one kind of dependencies in one role, together with its
+   * strongly connected components and its condensation.
+   * Arrays of adjacency are in compressed form: the targets of node i are
+   * _targets[_targetOffsets[i]] to _targets[_targetOffsets[i+1]-1], and likewise
+   * for the members and successors of components.
+   */
+  protected class DependencyLayer {
+  
+    /** The offsets of the direct dependencies of nodes */
+    protected final int[] _targetOffsets;
+  
+    /** The direct dependencies of nodes, without duplicates */
+    protected final int[] _targets;
+  
+    /** The number of strongly connected components */
+    protected final int _nbComponents;
+  
+    /** The component of every node: a component is numbered after all those it depends upon */
+    protected final int[] _componentOf;
+  
+    /** The offsets of the members of components */
+    protected final int[] _memberOffsets;
+  
+    /** The members of components, in ascending order of ordinal */
+    protected final int[] _members;
+  
+    /** The offsets of the successors of components in the condensed graph */
+    protected final int[] _successorOffsets;
+  
+    /** The successors of components in the condensed graph, without duplicates */
+    protected final int[] _successors;
+  
+    /** The marks on components during traversals */
+    protected final int[] _componentMarks;
+  
+    /** The last mark used on components */
+    private int _currentComponentMark;
+  
+    /**
+     * Constructor
+     * @param role_p TARGET or REFERENCE
+     * @param explicit_p whether the dependencies are the requires or implies ones
+     */
+    protected DependencyLayer(Role role_p, boolean explicit_p) {
+      int size = _nodes.size();
+      // Adjacency
+      _targetOffsets = new int[size + 1];
+      int[] targets = new int[size];
+      int nbTargets = 0;
+      int[] seen = new int[size];
+      for (int i = 0; i < size; i++) {
+        _targetOffsets[i] = nbTargets;
+        for (IMergeableDifference<E> target :
+          getDirectDependencies(_nodes.get(i), role_p, explicit_p)) {
+          Integer targetOrdinal = _ordinals.get(target);
+          if (targetOrdinal != null) {
+            int t = targetOrdinal.intValue();
+            if (seen[t] != i + 1) {
+              seen[t] = i + 1;
+              targets = append(targets, nbTargets++, t);
+            }
+          }
+        }
+      }
+      _targetOffsets[size] = nbTargets;
+      _targets = targets;
+      // Components
+      _componentOf = new int[size];
+      _nbComponents = computeComponents();
+      int[] memberCounts = new int[_nbComponents + 1];
+      for (int i = 0; i < size; i++) {
+        memberCounts[_componentOf[i] + 1]++;
+      }
+      _memberOffsets = new int[_nbComponents + 1];
+      for (int c = 0; c < _nbComponents; c++) {
+        _memberOffsets[c + 1] = _memberOffsets[c] + memberCounts[c + 1];
+      }
+      _members = new int[size];
+      int[] filling = Arrays.copyOf(_memberOffsets, _nbComponents);
+      for (int i = 0; i < size; i++) {
+        _members[filling[_componentOf[i]]++] = i;
+      }
+      // Condensation
+      _successorOffsets = new int[_nbComponents + 1];
+      int[] successors = new int[Math.max(16, nbTargets)];
+      int nbSuccessors = 0;
+      int[] seenComponents = new int[_nbComponents];
+      for (int c = 0; c < _nbComponents; c++) {
+        _successorOffsets[c] = nbSuccessors;
+        for (int m = _memberOffsets[c]; m < _memberOffsets[c + 1]; m++) {
+          int member = _members[m];
+          for (int j = _targetOffsets[member]; j < _targetOffsets[member + 1]; j++) {
+            int d = _componentOf[_targets[j]];
+            if (d != c && seenComponents[d] != c + 1) {
+              seenComponents[d] = c + 1;
+              successors = append(successors, nbSuccessors++, d);
+            }
+          }
+        }
+      }
+      _successorOffsets[_nbComponents] = nbSuccessors;
+      _successors = successors;
+      _componentMarks = new int[_nbComponents];
+      _currentComponentMark = 0;
+    }
+  
+    /**
+     * Compute the strongly connected components of the graph with an iterative
+     * version of Tarjan's algorithm and fill _componentOf accordingly
+     * @return the number of components
+     */
+    private int computeComponents() {
+      int size = _componentOf.length;
+      int[] index = new int[size];
+      Arrays.fill(index, -1);
+      int[] lowLink = new int[size];
+      boolean[] onStack = new boolean[size];
+      int[] stack = new int[size];
+      int stackSize = 0;
+      int[] callStack = new int[size];
+      int[] nextTarget = new int[size];
+      int counter = 0;
+      int result = 0;
+      for (int root = 0; root < size; root++) {
+        if (index[root] >= 0) {
+          continue;
+        }
+        int callSize = 0;
+        index[root] = lowLink[root] = counter++;
+        stack[stackSize++] = root;
+        onStack[root] = true;
+        nextTarget[root] = _targetOffsets[root];
+        callStack[callSize++] = root;
+        while (callSize > 0) {
+          int v = callStack[callSize - 1];
+          if (nextTarget[v] < _targetOffsets[v + 1]) {
+            int w = _targets[nextTarget[v]++];
+            if (index[w] < 0) {
+              index[w] = lowLink[w] = counter++;
+              stack[stackSize++] = w;
+              onStack[w] = true;
+              nextTarget[w] = _targetOffsets[w];
+              callStack[callSize++] = w;
+            } else if (onStack[w]) {
+              lowLink[v] = Math.min(lowLink[v], index[w]);
+            }
+          } else {
+            callSize--;
+            if (lowLink[v] == index[v]) {
+              // v is the root of a component whose dependencies have all been numbered
+              int w;
+              do {
+                w = stack[--stackSize];
+                onStack[w] = false;
+                _componentOf[w] = result;
+              } while (w != v);
+              result++;
+            }
+            if (callSize > 0) {
+              int u = callStack[callSize - 1];
+              lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+            }
+          }
+        }
+      }
+      return result;
+    }
+  
+    /**
+     * Return a fresh mark for components
+     * @return a non-zero int
+     */
+    protected int nextMark() {
+      _currentComponentMark++;
+      if (_currentComponentMark == 0) {
+        Arrays.fill(_componentMarks, 0);
+        _currentComponentMark = 1;
+      }
+      return _currentComponentMark;
+    }
+  }
+  
+}
@@ -0,0 +1,184 @@
+/*********************************************************************
+ * Copyright (c) 2026 agent
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ **********************************************************************/
+package org.eclipse.emf.diffmerge.generic.impl.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.diffmerge.generic.Messages;
+import org.eclipse.emf.diffmerge.generic.api.scopes.IPersistentDataScope;
+
+
+/**
+ * An operation which loads a given list of persistent data scopes, either one after
+ * the other or concurrently.
+ * Loading concurrently is only safe if the scopes do not share any persistence context
+ * such as a resource set or an editing domain: it is the caller's responsibility
+ * to ensure it.
+ * 
+ * @author agent
+ */
+public class LoadingOperation extends AbstractExpensiveOperation {
+  
+  /** The delay in milliseconds between two checks of cancellation while waiting
+   * for concurrent loadings */
+  private static final long CANCELATION_CHECK_DELAY = 100;
+  
+  /** The non-null, potentially empty list of scopes to load */
+  protected final List<? extends IPersistentDataScope<?>> _scopes;
+  
+  /** Whether the scopes must be loaded concurrently */
+  protected final boolean _concurrent;
+  
+  /** The non-null, initially empty list of statuses of the loading of the scopes */
+  protected final List<IStatus> _statuses;
+  
+  
+  /**
+   * Constructor
+   * @param scopes_p a non-null, potentially empty list of scopes to load
+   * @param concurrent_p whether the scopes must be loaded concurrently
+   */
+  public LoadingOperation(List<? extends IPersistentDataScope<?>> scopes_p,
+      boolean concurrent_p) {
+    super();
+    _scopes = scopes_p;
+    _concurrent = concurrent_p;
+    _statuses = new ArrayList<IStatus>(scopes_p.size());
+  }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.util.IExpensiveOperation#getOperationName()
+   */
+  public String getOperationName() {
+    return Messages.LoadingOperation_Name;
+  }
+  
+  /**
+   * Return the statuses of the loading of the scopes, in the order of the scopes
+   * @return a non-null, potentially empty, unmodifiable list
+   */
+  public List<IStatus> getStatuses() {
+    return Collections.unmodifiableList(_statuses);
+  }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.impl.helpers.AbstractExpensiveOperation#getWorkAmount()
+   */
+  @Override
+  protected int getWorkAmount() {
+    return _scopes.size();
+  }
+  
+  /**
+   * Load the scopes one after the other
+   */
+  protected void loadSequentially() {
+    for (IPersistentDataScope<?> scope : _scopes) {
+      checkProgress();
+      _statuses.add(scope.load());
+      getMonitor().worked(1);
+    }
+  }
+  
+  /**
+   * Load the scopes concurrently, each one in a dedicated thread.
+   * Cancellation is checked periodically while waiting for the loadings.
+   */
+  protected void loadConcurrently() {
+    ExecutorService executor = Executors.newFixedThreadPool(_scopes.size());
+    List<Future<IStatus>> futures = new ArrayList<Future<IStatus>>(_scopes.size());
+    try {
+      for (final IPersistentDataScope<?> scope : _scopes) {
+        futures.add(executor.submit(new Callable<IStatus>() {
+          /**
+           * @see java.util.concurrent.Callable#call()
+           */
+          public IStatus call() {
+            return scope.load();
+          }
+        }));
+      }
+      for (Future<IStatus> future : futures) {
+        _statuses.add(waitFor(future));
+        getMonitor().worked(1);
+      }
+    } finally {
+      for (Future<IStatus> future : futures) {
+        future.cancel(true);
+      }
+      executor.shutdown();
+    }
+  }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.util.IExpensiveOperation#run()
+   * @return the first non-OK status of the loading of the scopes, if any, or an OK status
+   */
+  public IStatus run() {
+    _statuses.clear();
+    if (_concurrent && _scopes.size() > 1) {
+      loadConcurrently();
+    } else {
+      loadSequentially();
+    }
+    IStatus result = Status.OK_STATUS;
+    for (IStatus status : _statuses) {
+      if (!status.isOK()) {
+        result = status;
+        break;
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Wait for the given loading to complete and return its status
+   * @param future_p a non-null future
+   * @return a non-null status
+   * @throws OperationCanceledException if the operation has been canceled meanwhile
+   */
+  protected IStatus waitFor(Future<IStatus> future_p) {
+    while (true) {
+      checkProgress();
+      try {
+        return future_p.get(CANCELATION_CHECK_DELAY, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // Check cancellation and wait again
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException)cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error)cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+  }
+  
+}
@@ -11,14 +11,19 @@
  **********************************************************************/
 package org.eclipse.emf.diffmerge.generic.impl.helpers;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -29,6 +34,7 @@ import org.eclipse.emf.diffmerge.generic.api.IMatch;
 import org.eclipse.emf.diffmerge.generic.api.IMatchPolicy;
 import org.eclipse.emf.diffmerge.generic.api.Role;
 import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
+import org.eclipse.emf.diffmerge.generic.impl.policies.CachingMatchPolicy;
 
 
 /**
@@ -55,6 +61,13 @@ public class MatchOperation<E> extends AbstractExpensiveOperation {
   /** Duplicate IDs in role 2 which may have an impact on the mapping */
   protected final Set<Object> _duplicateCandidatesRole2;
   
+  /** The strictly positive maximal number of threads for computing match IDs */
+  protected final int _parallelism;
+  
+  /** The non-null, potentially empty map from roles to the match IDs computed
+   * in advance for the elements of the corresponding scopes */
+  private final Map<Role, Map<E, Object>> _precomputedMatchIDs;
+  
   
   /**
    * Constructor
@@ -65,12 +78,85 @@ public class MatchOperation<E> extends AbstractExpensiveOperation {
    */
   public MatchOperation(IComparison.Editable<E> comparison_p,
       IMatchPolicy<E> policy_p, Map<Role, Set<Object>> duplicateIDs_p) {
+    this(comparison_p, policy_p, duplicateIDs_p, 1);
+  }
+  
+  /**
+   * Constructor with a level of parallelism.
+   * If more than one thread is allowed, the elements of all scopes are collected
+   * sequentially, then their match IDs are computed in parallel on a fork-join pool
+   * before the mapping is built sequentially in the same order as in the sequential
+   * case. The match policy must then support concurrent calls to
+   * IMatchPolicy#getMatchID(Object, ITreeDataScope). Match IDs are only computed in
+   * parallel if all the scopes support concurrent reads.
+   * @param comparison_p a non-null comparison whose mapping is to be built
+   * @param policy_p a non-null match policy
+   * @param duplicateIDs_p an optional map that associates each role with an empty,
+   *          modifiable set of duplicate match IDs, to be filled by this operation
+   * @param parallelism_p the strictly positive maximal number of threads
+   */
+  public MatchOperation(IComparison.Editable<E> comparison_p,
+      IMatchPolicy<E> policy_p, Map<Role, Set<Object>> duplicateIDs_p,
+      int parallelism_p) {
     super();
     _comparison = comparison_p;
     _policy = policy_p;
     _duplicateIDs = duplicateIDs_p;
     _duplicateCandidatesRole1 = new HashSet<Object>(0);
     _duplicateCandidatesRole2 = new HashSet<Object>(0);
+    _parallelism = Math.max(1, parallelism_p);
+    _precomputedMatchIDs = new HashMap<Role, Map<E, Object>>(3);
+  }
+  
+  /**
+   * Compute the match IDs of the elements of the scopes of the given roles in parallel
+   * and remember them for the mapping phase. The scopes are explored sequentially
+   * so that only the match IDs are computed by concurrent tasks.
+   * @param roles_p a non-null array of roles
+   */
+  protected void computeMatchIDsInParallel(Role... roles_p) {
+    List<MatchIDTask> tasks = new ArrayList<MatchIDTask>(roles_p.length);
+    List<List<E>> elements = new ArrayList<List<E>>(roles_p.length);
+    List<Object[]> matchIDs = new ArrayList<Object[]>(roles_p.length);
+    for (Role role : roles_p) {
+      ITreeDataScope<E> scope = getComparison().getScope(role);
+      List<E> roleElements = new ArrayList<E>();
+      if (scope != null) {
+        Iterator<E> it = scope.iterator();
+        while (it.hasNext()) {
+          roleElements.add(it.next());
+        }
+        checkProgress();
+      }
+      Object[] roleMatchIDs = new Object[roleElements.size()];
+      elements.add(roleElements);
+      matchIDs.add(roleMatchIDs);
+      if (scope != null) {
+        tasks.add(new MatchIDTask(scope, roleElements, roleMatchIDs, 0,
+            roleElements.size()));
+      }
+    }
+    ForkJoinPool pool = new ForkJoinPool(_parallelism);
+    try {
+      for (MatchIDTask task : tasks) {
+        pool.execute(task);
+      }
+      for (MatchIDTask task : tasks) {
+        task.join();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    checkProgress();
+    for (int i = 0; i < roles_p.length; i++) {
+      List<E> roleElements = elements.get(i);
+      Object[] roleMatchIDs = matchIDs.get(i);
+      Map<E, Object> table = new IdentityHashMap<E, Object>(roleElements.size());
+      for (int j = 0; j < roleMatchIDs.length; j++) {
+        table.put(roleElements.get(j), roleMatchIDs[j]);
+      }
+      _precomputedMatchIDs.put(roles_p[i], table);
+    }
   }
   
   /**
@@ -116,7 +202,7 @@ public class MatchOperation<E> extends AbstractExpensiveOperation {
         E current = it.next();
         IMatch.Editable<E> match = mapping.map(current, role_p);
         if (rememberMatchIDs || fillIDMap_p) {
-          Object matchID = getMatchPolicy().getMatchID(current, scope);
+          Object matchID = getMatchID(current, role_p, scope);
           if (matchID != null) {
             if (rememberMatchIDs) {
               match.setMatchID(matchID);
@@ -167,7 +253,7 @@ public class MatchOperation<E> extends AbstractExpensiveOperation {
         E current = targetIt.next();
         E counterpart1 = null;
         E counterpart2 = null;
-        Object matchID = getMatchPolicy().getMatchID(current, scope);
+        Object matchID = getMatchID(current, role_p, scope);
         if (matchID != null) {
           if (fillIDMap_p) {
             E squatter = result.put(matchID, current);
@@ -207,6 +293,25 @@ public class MatchOperation<E> extends AbstractExpensiveOperation {
     return result;
   }
   
+  /**
+   * Return the match ID of the given element in the scope of the given role,
+   * reusing the match ID computed in advance if any
+   * @param element_p a non-null element
+   * @param role_p a non-null role
+   * @param scope_p the non-null scope of the given role
+   * @return a potentially null object
+   */
+  protected Object getMatchID(E element_p, Role role_p, ITreeDataScope<E> scope_p) {
+    Map<E, Object> precomputed = _precomputedMatchIDs.get(role_p);
+    if (precomputed != null) {
+      Object result = precomputed.get(element_p);
+      if (result != null || precomputed.containsKey(element_p)) {
+        return result;
+      }
+    }
+    return getMatchPolicy().getMatchID(element_p, scope_p);
+  }
+  
   /**
    * Return the match policy
    * @return a non-null match policy
@@ -248,29 +353,79 @@ public class MatchOperation<E> extends AbstractExpensiveOperation {
     final Role firstSide = getComparison().getMapping().getOrderingRole();
     final Role secondSide = firstSide.opposite();
     boolean threeWay = _comparison.isThreeWay();
-    getMonitor().subTask(Messages.MatchBuilder_Task_RegisteringIDs);
-    Map<Object, E> firstSideIDRegistry = explore(firstSide, true);
-    getMonitor().worked(1);
-    getMonitor().subTask(Messages.MatchBuilder_Task_MappingIDs);
-    Map<Object, E> secondSideIDRegistry = exploreAndMatch(
-        secondSide, firstSideIDRegistry, firstSide, null, null, threeWay);
-    getMonitor().worked(1);
-    if (threeWay) {
-      exploreAndMatch(Role.ANCESTOR, firstSideIDRegistry, firstSide,
-          secondSideIDRegistry, secondSide, false);
+    IMapping.Editable<E> mapping = getComparison().getMapping();
+    // Matches replaced while matching are removed all at once at the end
+    mapping.deferMatchRemovals();
+    try {
+      getMonitor().subTask(Messages.MatchBuilder_Task_RegisteringIDs);
+      if (isParallel()) {
+        if (threeWay) {
+          computeMatchIDsInParallel(firstSide, secondSide, Role.ANCESTOR);
+        } else {
+          computeMatchIDsInParallel(firstSide, secondSide);
+        }
+      }
+      Map<Object, E> firstSideIDRegistry = explore(firstSide, true);
+      getMonitor().worked(1);
+      getMonitor().subTask(Messages.MatchBuilder_Task_MappingIDs);
+      Map<Object, E> secondSideIDRegistry = exploreAndMatch(
+          secondSide, firstSideIDRegistry, firstSide, null, null, threeWay);
       getMonitor().worked(1);
+      if (threeWay) {
+        exploreAndMatch(Role.ANCESTOR, firstSideIDRegistry, firstSide,
+            secondSideIDRegistry, secondSide, false);
+        getMonitor().worked(1);
+      }
+    } finally {
+      mapping.flushMatchRemovals();
     }
     _duplicateCandidatesRole1.clear();
     _duplicateCandidatesRole2.clear();
   }
   
+  /**
+   * Return whether match IDs must be computed in parallel, which requires
+   * that more than one thread be allowed and that all the scopes compared
+   * support concurrent reads
+   */
+  protected boolean isParallel() {
+    if (_parallelism <= 1) {
+      return false;
+    }
+    for (Role role : Role.values()) {
+      ITreeDataScope<E> scope = getComparison().getScope(role);
+      if (scope != null && !scope.supportsConcurrentReads()) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Release the resources that are only needed while the mapping is being built,
+   * such as the match IDs cached by the match policy unless it retains them
+   */
+  protected void matchingFinished() {
+    _precomputedMatchIDs.clear();
+    if (getMatchPolicy() instanceof CachingMatchPolicy<?>) {
+      CachingMatchPolicy<?> policy = (CachingMatchPolicy<?>)getMatchPolicy();
+      if (!policy.isCacheRetained()) {
+        policy.clearCache();
+      }
+    }
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.generic.util.IExpensiveOperation#run()
    * Postconditions: see MatchOperation#match()
    */
   public IStatus run() {
     getMonitor().worked(1);
-    match();
+    try {
+      match();
+    } finally {
+      matchingFinished();
+    }
     scopeCovered(Role.TARGET);
     getMonitor().worked(1);
     scopeCovered(Role.REFERENCE);
@@ -290,4 +445,60 @@ public class MatchOperation<E> extends AbstractExpensiveOperation {
     // Nothing by default
   }
   
+  
+  
+  /**
+   * A fork-join task that computes the match IDs of a range of elements
+   * of a given scope. Results are stored at the same indices as the elements.
+   */
+  @SuppressWarnings("serial")
+  protected class MatchIDTask extends RecursiveAction {
+    /** The number of elements below which a task is not split */
+    private static final int SPLIT_THRESHOLD = 256;
+    /** The non-null scope of the elements */
+    private final ITreeDataScope<E> _scope;
+    /** The non-null elements to process, which are not modified concurrently */
+    private final List<E> _elements;
+    /** The non-null array of match IDs, of the same size as the elements */
+    private final Object[] _matchIDs;
+    /** The index of the first element to process */
+    private final int _from;
+    /** The index after the last element to process */
+    private final int _to;
+    /**
+     * Constructor
+     * @param scope_p the non-null scope of the elements
+     * @param elements_p the non-null list of elements
+     * @param matchIDs_p a non-null array for the results, of the same size as elements_p
+     * @param from_p the index of the first element to process
+     * @param to_p the index after the last element to process
+     */
+    public MatchIDTask(ITreeDataScope<E> scope_p, List<E> elements_p,
+        Object[] matchIDs_p, int from_p, int to_p) {
+      _scope = scope_p;
+      _elements = elements_p;
+      _matchIDs = matchIDs_p;
+      _from = from_p;
+      _to = to_p;
+    }
+    /**
+     * @see java.util.concurrent.RecursiveAction#compute()
+     */
+    @Override
+    protected void compute() {
+      if (_to - _from > SPLIT_THRESHOLD) {
+        int middle = (_from + _to) >>> 1;
+        invokeAll(new MatchIDTask(_scope, _elements, _matchIDs, _from, middle),
+            new MatchIDTask(_scope, _elements, _matchIDs, middle, _to));
+        return;
+      }
+      for (int i = _from; i < _to; i++) {
+        if (getMonitor().isCanceled()) {
+          return;
+        }
+        _matchIDs[i] = getMatchPolicy().getMatchID(_elements.get(i), _scope);
+      }
+    }
+  }
+  
 }
@@ -11,8 +11,10 @@
  **********************************************************************/
 package org.eclipse.emf.diffmerge.generic.impl.helpers;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -54,6 +56,10 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
   /** The non-null set of differences that have actually been merged (initially empty) */
   protected final Collection<IDifference<E>> _actuallyMerged;
   
+  /** Whether the differences are merged in batch: ordered once according to their
+   * dependencies, and with references only completed for the elements added */
+  protected final boolean _batch;
+  
   
   /**
    * Constructor for a selected subset of differences
@@ -65,6 +71,27 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
   public MergeOperation(IComparison<E> comparison_p,
       Collection<? extends IDifference<E>> differences_p, Role destination_p,
       boolean updateReferences_p) {
+    this(comparison_p, differences_p, destination_p, updateReferences_p, false);
+  }
+  
+  /**
+   * Constructor for a selected subset of differences with a merge mode.
+   * In both modes, differences are merged through IMergeableDifference#mergeTo(Role).
+   * In batch mode, the transitive requires dependencies of the whole selection are
+   * computed once so that the selected differences are merged in an order where
+   * dependencies come first, and differences that are merged as a side effect of
+   * previous ones are skipped. References are then only completed for the elements
+   * added by the operation and for the formerly added elements which reference them,
+   * instead of for all the elements ever added in the comparison.
+   * @param comparison_p a non-null comparison
+   * @param differences_p a non-null, potentially empty set of differences to merge
+   * @param destination_p a role which is TARGET or REFERENCE
+   * @param updateReferences_p whether references of the elements added must be set
+   * @param batch_p whether differences must be merged in batch
+   */
+  public MergeOperation(IComparison<E> comparison_p,
+      Collection<? extends IDifference<E>> differences_p, Role destination_p,
+      boolean updateReferences_p, boolean batch_p) {
     super();
     _comparison = comparison_p;
     _toMerge = differences_p;
@@ -72,6 +99,7 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
     _merger = null;
     _updateReferences = updateReferences_p;
     _actuallyMerged = new FArrayList<IDifference<E>>();
+    _batch = batch_p;
   }
   
   /**
@@ -82,6 +110,19 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
    */
   public MergeOperation(IComparison<E> comparison_p, IMergeSelector<E> merger_p,
       boolean updateReferences_p) {
+    this(comparison_p, merger_p, updateReferences_p, false);
+  }
+  
+  /**
+   * Constructor for a global merger with a merge mode
+   * @see MergeOperation#MergeOperation(IComparison, Collection, Role, boolean, boolean)
+   * @param comparison_p a non-null comparison
+   * @param merger_p a non-null merger
+   * @param updateReferences_p whether references of the elements added must be set
+   * @param batch_p whether differences must be merged in batch
+   */
+  public MergeOperation(IComparison<E> comparison_p, IMergeSelector<E> merger_p,
+      boolean updateReferences_p, boolean batch_p) {
     super();
     _comparison = comparison_p;
     _toMerge = Collections.emptySet();
@@ -89,6 +130,78 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
     _merger = merger_p;
     _updateReferences = updateReferences_p;
     _actuallyMerged = new FArrayList<IDifference<E>>();
+    _batch = batch_p;
+  }
+  
+  /**
+   * Complete the references of the elements added in the given role
+   * @param role_p a role which is TARGET or REFERENCE
+   * @param nbFormerlyCompleted_p the number of matches which had been completed
+   *          in the given role before this operation
+   */
+  protected void completeReferences(Role role_p, int nbFormerlyCompleted_p) {
+    IMapping.Editable<E> mapping = (IMapping.Editable<E>)_comparison.getMapping();
+    if (_batch) {
+      List<IMatch<E>> newlyCompleted = new ArrayList<IMatch<E>>();
+      int i = 0;
+      for (IMatch<E> completed : mapping.getCompletedMatches(role_p)) {
+        if (i >= nbFormerlyCompleted_p) {
+          newlyCompleted.add(completed);
+        }
+        i++;
+      }
+      mapping.completeReferences(role_p, newlyCompleted);
+    } else {
+      mapping.completeReferences(role_p);
+    }
+  }
+  
+  /**
+   * Return a dependency graph that covers the given differences, for ordering them
+   * in batch mode
+   * @param differences_p a non-null collection of differences
+   * @return a non-null graph
+   */
+  protected DifferenceDependencyGraph<E> getDependencyGraph(
+      Collection<? extends IMergeableDifference<E>> differences_p) {
+    return new DifferenceDependencyGraph<E>(differences_p);
+  }
+  
+  /**
+   * Merge the given differences in the given role in batch, that is, in an order
+   * where the differences they require come first, and skipping those which have
+   * been merged in the meantime
+   * @param differences_p a non-null collection of differences
+   * @param destination_p a role which is TARGET or REFERENCE
+   */
+  protected void mergeInBatch(Collection<? extends IMergeableDifference<E>> differences_p,
+      Role destination_p) {
+    if (differences_p.isEmpty()) {
+      return;
+    }
+    List<IMergeableDifference<E>> ordered =
+        getDependencyGraph(differences_p).getMergeOrder(differences_p, destination_p);
+    for (IMergeableDifference<E> difference : ordered) {
+      checkProgress();
+      if (!difference.isMerged()) {
+        mergeTo(difference, destination_p);
+      }
+      getMonitor().worked(1);
+    }
+  }
+  
+  /**
+   * Merge the given difference in the given role, ignoring it if it cannot be merged
+   * @param difference_p a non-null difference
+   * @param destination_p a role which is TARGET or REFERENCE
+   */
+  protected void mergeTo(IMergeableDifference<E> difference_p, Role destination_p) {
+    try {
+      Collection<IDifference<E>> merged = difference_p.mergeTo(destination_p);
+      _actuallyMerged.addAll(merged);
+    } catch (UnsupportedOperationException e) {
+      // Cannot merge this difference: proceed
+    }
   }
   
   /**
@@ -129,6 +242,9 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
    */
   public IStatus run() {
     getMonitor().worked(1);
+    IMapping<E> mapping = _comparison.getMapping();
+    int nbFormerlyCompletedInTarget = mapping.getCompletedMatches(Role.TARGET).size();
+    int nbFormerlyCompletedInReference = mapping.getCompletedMatches(Role.REFERENCE).size();
     IStatus result;
     if (isGlobal()) {
       result = runOnComparison();
@@ -137,12 +253,11 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
     }
     if (_updateReferences && result != null && result.isOK()) {
       checkProgress();
-      IMapping.Editable<E> mapping = (IMapping.Editable<E>)_comparison.getMapping();
-      if (_destinationRole != null) {
-        mapping.completeReferences(_destinationRole);
-      } else {
-        mapping.completeReferences(Role.TARGET);
-        mapping.completeReferences(Role.REFERENCE);
+      if (_destinationRole != Role.REFERENCE) {
+        completeReferences(Role.TARGET, nbFormerlyCompletedInTarget);
+      }
+      if (_destinationRole != Role.TARGET) {
+        completeReferences(Role.REFERENCE, nbFormerlyCompletedInReference);
       }
       getMonitor().worked(1);
     }
@@ -154,6 +269,9 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
    * @return a non-null status
    */
   protected IStatus runOnComparison() {
+    if (_batch) {
+      return runOnComparisonInBatch();
+    }
     for (IMatch<E> match : _comparison.getMapping().getContents()) {
       for (IDifference<E> difference : match.getAllDifferences()) {
         checkProgress();
@@ -173,11 +291,47 @@ public class MergeOperation<E> extends AbstractExpensiveOperation {
     return Status.OK_STATUS;
   }
   
+  /**
+   * Run the merge operation on the whole comparison with a merger, in batch
+   * @return a non-null status
+   */
+  protected IStatus runOnComparisonInBatch() {
+    List<IMergeableDifference<E>> toTarget = new ArrayList<IMergeableDifference<E>>();
+    List<IMergeableDifference<E>> toReference = new ArrayList<IMergeableDifference<E>>();
+    for (IMatch<E> match : _comparison.getMapping().getContents()) {
+      for (IDifference<E> difference : match.getAllDifferences()) {
+        checkProgress();
+        Role mergeDirection = _merger.getMergeDirection(difference);
+        if (mergeDirection != null && difference.canMergeTo(mergeDirection)) {
+          if (mergeDirection == Role.TARGET) {
+            toTarget.add((IMergeableDifference<E>)difference);
+          } else {
+            toReference.add((IMergeableDifference<E>)difference);
+          }
+        }
+      }
+    }
+    mergeInBatch(toTarget, Role.TARGET);
+    mergeInBatch(toReference, Role.REFERENCE);
+    return Status.OK_STATUS;
+  }
+  
   /**
    * Run the merge operation on a selected subset of differences
    * @return a non-null status
    */
   protected IStatus runOnSet() {
+    if (_batch) {
+      List<IMergeableDifference<E>> selection =
+          new ArrayList<IMergeableDifference<E>>(_toMerge.size());
+      for (IDifference<E> difference : _toMerge) {
+        if (difference instanceof IMergeableDifference) {
+          selection.add((IMergeableDifference<E>)difference);
+        }
+      }
+      mergeInBatch(selection, _destinationRole);
+      return Status.OK_STATUS;
+    }
     for (IDifference<E> difference : _toMerge) {
       checkProgress();
       try {
@@ -11,9 +11,16 @@
  **********************************************************************/
 package org.eclipse.emf.diffmerge.generic.impl.helpers;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.eclipse.emf.common.util.AbstractEList;
 import org.eclipse.emf.diffmerge.generic.api.IComparison;
 import org.eclipse.emf.diffmerge.generic.api.IDiffPolicy;
 import org.eclipse.emf.diffmerge.generic.api.IMapping;
@@ -22,6 +29,8 @@ import org.eclipse.emf.diffmerge.generic.api.IMergePolicy;
 import org.eclipse.emf.diffmerge.generic.api.Role;
 import org.eclipse.emf.diffmerge.generic.api.scopes.IEditableTreeDataScope;
 import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
+import org.eclipse.emf.diffmerge.structures.IEqualityTester;
+import org.eclipse.emf.diffmerge.structures.common.FHashSet;
 
 
 /**
@@ -54,6 +63,28 @@ public class UnidirectionalComparisonCopier<E> {
   /** Whether out of scope values must be copied or ignored */
   protected boolean _copyOutOfScopeValues;
   
+  /** The potentially null collection of completed matches which is currently indexed */
+  private Collection<IMatch<E>> _indexedMatches;
+  
+  /** The non-null identity-based index of the first matches of _indexedMatches,
+   * associated with their position */
+  private final Map<IMatch<E>, Integer> _completedMatchIndex;
+  
+  /** The potentially null completed match which has last been indexed */
+  private IMatch<E> _lastIndexedMatch;
+  
+  /** The non-null identity-based map from source elements which have no counterpart
+   * to the completed matches whose elements reference them */
+  private final Map<E, List<IMatch<E>>> _pendingReferences;
+  
+  /** Whether _pendingReferences covers all the completed matches whose references
+   * have been completed */
+  private boolean _pendingReferencesKnown;
+  
+  /** The completed matches whose elements have been added through a containment
+   * during the current incremental completion of references, or null if none is running */
+  private Set<IMatch<E>> _containedMatches;
+  
   
   /**
    * Constructor
@@ -66,6 +97,12 @@ public class UnidirectionalComparisonCopier<E> {
     _sourceScope = null;
     _destinationScope = null;
     _copyOutOfScopeValues = false;
+    _indexedMatches = null;
+    _completedMatchIndex = new IdentityHashMap<IMatch<E>, Integer>();
+    _lastIndexedMatch = null;
+    _pendingReferences = new IdentityHashMap<E, List<IMatch<E>>>();
+    _pendingReferencesKnown = false;
+    _containedMatches = null;
   }
   
   /**
@@ -77,16 +114,24 @@ public class UnidirectionalComparisonCopier<E> {
    * @param comparison_p a non-null comparison
    * @return a non-null element which is a clone of the element in partialMatch_p
    */
+  @SuppressWarnings("unchecked")
   public E completeMatch(IMatch<E> partialMatch_p, IComparison.Editable<E> comparison_p) {
     setComparison(comparison_p);
     assert partialMatch_p.getUncoveredRole() == _sourceRole.opposite() &&
-        !getCompletedMatches().contains(partialMatch_p);
+        !isCompleted(partialMatch_p);
     E element = partialMatch_p.get(_sourceRole);
     E result = copy(element);
     assert result != null;
     _mapping.mapIncrementally(
         element, _sourceRole, result, _sourceRole.opposite());
-    getCompletedMatches().add(_mapping.getMatchFor(element, _sourceRole));
+    IMatch<E> completedMatch = _mapping.getMatchFor(element, _sourceRole);
+    Collection<IMatch<E>> completedMatches = getCompletedMatches();
+    if (completedMatches instanceof AbstractEList<?> && !isCompleted(completedMatch)) {
+      // Uniqueness is already known, avoid a linear check
+      ((AbstractEList<IMatch<E>>)completedMatches).addUnique(completedMatch);
+    } else {
+      completedMatches.add(completedMatch);
+    }
     return result;
   }
   
@@ -99,6 +144,58 @@ public class UnidirectionalComparisonCopier<E> {
     copyReferences();
   }
   
+  /**
+   * Complete the references between completed elements, knowing that only
+   * the given matches have been completed since references were last completed.
+   * The references of the given matches are copied, while the formerly completed
+   * matches whose elements reference the given ones only receive these values.
+   * IDs are only set on the given matches and on the formerly completed matches
+   * whose elements have been added through a containment.
+   * @param comparison_p a non-null comparison defining a behavioral context
+   * @param newlyCompleted_p a non-null, potentially empty collection of completed matches
+   *          which have been completed after all the other completed matches
+   */
+  public void completeReferences(IComparison.Editable<E> comparison_p,
+      Collection<? extends IMatch<E>> newlyCompleted_p) {
+    setComparison(comparison_p);
+    if (newlyCompleted_p.isEmpty()) {
+      return;
+    }
+    updateCompletedMatchIndex();
+    if (!_pendingReferencesKnown &&
+        _completedMatchIndex.size() > newlyCompleted_p.size()) {
+      // The formerly completed matches which reference the new ones are unknown
+      copyReferences();
+      return;
+    }
+    Set<IMatch<E>> newMatches = new FHashSet<IMatch<E>>(
+        newlyCompleted_p, IEqualityTester.BY_REFERENCE);
+    List<IMatch<E>> holders = getPendingHolders(newlyCompleted_p, newMatches);
+    _containedMatches = new FHashSet<IMatch<E>>(IEqualityTester.BY_REFERENCE);
+    List<IMatch<E>> updatedMatches;
+    try {
+      // Same order as a full completion: formerly completed matches come first
+      for (IMatch<E> holder : holders) {
+        copyReferencesTo(holder, newMatches);
+      }
+      for (IMatch<E> newMatch : newlyCompleted_p) {
+        copyReferences(newMatch);
+      }
+      updatedMatches = new ArrayList<IMatch<E>>(
+          _containedMatches.size() + newlyCompleted_p.size());
+      for (IMatch<E> containedMatch : _containedMatches) {
+        if (!newMatches.contains(containedMatch)) {
+          updatedMatches.add(containedMatch);
+        }
+      }
+    } finally {
+      _containedMatches = null;
+    }
+    updatedMatches.addAll(newlyCompleted_p);
+    setIDs(updatedMatches);
+    _pendingReferencesKnown = true;
+  }
+  
   /**
    * Return a (shallow) copy of the given element.
    * Precondition: this method has never been called on the same element before,
@@ -124,8 +221,9 @@ public class UnidirectionalComparisonCopier<E> {
    * @param copy_p a non-null copy
    */
   protected void copyAttribute(Object attribute_p, E element_p, E copy_p) {
-    for (Object value : _sourceScope.getAttributeValues(element_p, attribute_p)) {
-      _destinationScope.addAttributeValue(copy_p, attribute_p, value);
+    List<?> values = _sourceScope.getAttributeValues(element_p, attribute_p);
+    if (!values.isEmpty()) {
+      _destinationScope.addAttributeValues(copy_p, attribute_p, values);
     }
   }
   
@@ -133,17 +231,12 @@ public class UnidirectionalComparisonCopier<E> {
    * Copy reference values between the source elements copied to the resulting copies
    */
   protected void copyReferences() {
+    _pendingReferences.clear();
     for (IMatch<E> updatedMatch : getCompletedMatches()) {
       copyReferences(updatedMatch);
     }
-    // Update of containments may have changed physical storage, which may have an impact on IDs
-    if (_mergePolicy != null) {
-      for (IMatch<E> updatedMatch : getCompletedMatches()) {
-        E source = updatedMatch.get(_sourceRole);
-        E target = updatedMatch.get(_sourceRole.opposite());
-        _mergePolicy.setID(source, _sourceScope, target, _destinationScope);
-      }
-    }
+    setIDs();
+    _pendingReferencesKnown = true;
   }
   
   /**
@@ -162,6 +255,43 @@ public class UnidirectionalComparisonCopier<E> {
     }
   }
   
+  /**
+   * Copy the cross-references of the destination element of the given match
+   * whose values belong to the given matches
+   * @param match_p a non-null, non-partial match
+   * @param valueMatches_p a non-null set of non-partial matches
+   */
+  protected void copyReferencesTo(IMatch<E> match_p, Set<IMatch<E>> valueMatches_p) {
+    E source = match_p.get(_sourceRole);
+    E destination = match_p.get(_sourceRole.opposite());
+    assert source != null && destination != null;
+    for (Object reference : _sourceScope.mGetReferences(source)) {
+      if (!_sourceScope.mIsContainerReference(reference) &&
+          coverReference(reference)) {
+        List<E> destinationValues = null;
+        boolean isContainment = _sourceScope.mIsContainmentReference(reference);
+        for (E sourceValue : _sourceScope.getReferenceValues(source, reference)) {
+          IMatch<E> valueMatch = _mapping.getMatchFor(sourceValue, _sourceRole);
+          if (valueMatch != null && valueMatches_p.contains(valueMatch)) {
+            E destinationValue = valueMatch.get(_sourceRole.opposite());
+            if (destinationValue != null) {
+              if (destinationValues == null) {
+                destinationValues = new ArrayList<E>();
+              }
+              destinationValues.add(destinationValue);
+              if (isContainment) {
+                valueContained(valueMatch);
+              }
+            }
+          }
+        }
+        if (destinationValues != null) {
+          _destinationScope.addReferenceValues(destination, reference, destinationValues);
+        }
+      }
+    }
+  }
+  
   /**
    * Copy the reference values of the given element to the given copy
    * @param reference_p a non-null reference
@@ -171,42 +301,64 @@ public class UnidirectionalComparisonCopier<E> {
   protected void copyReference(Object reference_p, E element_p, E copy_p) {
     // This implementation assumes that values need only be added
     List<E> sourceValues = _sourceScope.getReferenceValues(element_p, reference_p);
+    if (sourceValues.isEmpty()) {
+      return;
+    }
+    // Values are added at once so that the destination scope may group modifications
+    List<E> destinationValues = new ArrayList<E>(sourceValues.size());
     Object opposite = _sourceScope.mGetOppositeReference(reference_p);
+    boolean isContainment = _sourceScope.mIsContainmentReference(reference_p);
+    IMatch<E> holderMatch = null;
     for (E sourceValue : sourceValues) {
       IMatch<E> valueMatch = _mapping.getMatchFor(sourceValue, _sourceRole);
       if (valueMatch != null) {
         // Value in scope
+        E destinationValue = valueMatch.get(_sourceRole.opposite());
+        if (destinationValue == null) {
+          // Value may be completed later on
+          if (holderMatch == null) {
+            holderMatch = _mapping.getMatchFor(element_p, _sourceRole);
+          }
+          if (holderMatch != null) {
+            registerPendingReference(sourceValue, holderMatch);
+          }
+          continue;
+        }
         // If value is in copier or ref is unidirectional, it is not handled
         // by a ref presence diff so it must be copied
-        boolean mustCopy = getCompletedMatches().contains(valueMatch) ||
+        boolean mustCopy = isCompleted(valueMatch) ||
           // Being a containment means there is an implicit opposite
-          (opposite == null && !_sourceScope.mIsContainmentReference(reference_p));
+          (opposite == null && !isContainment);
         if (!mustCopy) {
           // Otherwise, check if it is actually handled by a ref presence diff
           // (it may not be because the opposite ref may not be covered by the diff policy)
-          IMatch<E> holderMatch = _mapping.getMatchFor(element_p, _sourceRole);
+          if (holderMatch == null) {
+            holderMatch = _mapping.getMatchFor(element_p, _sourceRole);
+          }
           if (holderMatch != null) {
             mustCopy =
                 holderMatch.getReferenceValueDifference(reference_p, sourceValue) == null;
           }
         }
         if (mustCopy) {
-          E destinationValue = valueMatch.get(_sourceRole.opposite());
-          if (destinationValue != null) {
-            _destinationScope.addReferenceValue(copy_p, reference_p, destinationValue);
+          destinationValues.add(destinationValue);
+          if (isContainment) {
+            valueContained(valueMatch);
           }
         } // Else handled by a ref presence diff
       } else {
         // Value out of scope: keep as is if no side effect due to bidirectionality or containment
-        if (_copyOutOfScopeValues && opposite == null &&
-            !_sourceScope.mIsContainmentReference(reference_p) &&
+        if (_copyOutOfScopeValues && opposite == null && !isContainment &&
             !_sourceScope.mIsContainerReference(reference_p) ||
             _diffPolicy != null && _diffPolicy.coverOutOfScopeValue(
                 sourceValue, reference_p, _sourceScope)) {
-          _destinationScope.addReferenceValue(copy_p, reference_p, sourceValue);
+          destinationValues.add(sourceValue);
         }
       }
     }
+    if (!destinationValues.isEmpty()) {
+      _destinationScope.addReferenceValues(copy_p, reference_p, destinationValues);
+    }
   }
   
   /**
@@ -246,7 +398,7 @@ public class UnidirectionalComparisonCopier<E> {
   public E get(E element_p, boolean copyOnly_p) {
     E result = null;
     IMatch<E> match = _mapping.getMatchFor(element_p, _sourceRole);
-    if (match != null && (!copyOnly_p || getCompletedMatches().contains(match))) {
+    if (match != null && (!copyOnly_p || isCompleted(match))) {
       result = match.get(_sourceRole.opposite());
     }
     return result;
@@ -261,6 +413,79 @@ public class UnidirectionalComparisonCopier<E> {
     return _mapping.getModifiableCompletedMatches(_sourceRole.opposite());
   }
   
+  /**
+   * Return the completed matches as a list whose order is that of completion
+   * @return a non-null, potentially empty list
+   */
+  @SuppressWarnings("unchecked")
+  private List<IMatch<E>> getCompletedMatchList() {
+    Collection<IMatch<E>> completedMatches = getCompletedMatches();
+    return (completedMatches instanceof List<?>)? (List<IMatch<E>>)completedMatches:
+      new ArrayList<IMatch<E>>(completedMatches);
+  }
+  
+  /**
+   * Return the formerly completed matches whose elements reference the elements
+   * of the given newly completed matches, in the order of completion, and forget
+   * them as pending
+   * @param newlyCompleted_p a non-null collection of completed matches
+   * @param newMatches_p a non-null set containing exactly the elements of newlyCompleted_p
+   * @return a non-null, potentially empty list
+   */
+  private List<IMatch<E>> getPendingHolders(
+      Collection<? extends IMatch<E>> newlyCompleted_p, Set<IMatch<E>> newMatches_p) {
+    List<IMatch<E>> result = new ArrayList<IMatch<E>>();
+    Set<IMatch<E>> known = new FHashSet<IMatch<E>>(IEqualityTester.BY_REFERENCE);
+    for (IMatch<E> newMatch : newlyCompleted_p) {
+      List<IMatch<E>> holders = _pendingReferences.remove(newMatch.get(_sourceRole));
+      if (holders != null) {
+        for (IMatch<E> holder : holders) {
+          if (!newMatches_p.contains(holder) && _completedMatchIndex.containsKey(holder) &&
+              known.add(holder)) {
+            result.add(holder);
+          }
+        }
+      }
+    }
+    Collections.sort(result, new Comparator<IMatch<E>>() {
+      /**
+       * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+       */
+      public int compare(IMatch<E> match1_p, IMatch<E> match2_p) {
+        return _completedMatchIndex.get(match1_p).compareTo(
+            _completedMatchIndex.get(match2_p));
+      }
+    });
+    return result;
+  }
+  
+  /**
+   * Return whether the given match has been completed by this copier
+   * @param match_p a non-null match
+   */
+  protected boolean isCompleted(IMatch<E> match_p) {
+    updateCompletedMatchIndex();
+    return _completedMatchIndex.containsKey(match_p);
+  }
+  
+  /**
+   * Record that the element of the given holder match references the given source
+   * element, so that the copy of the latter be added to the copy of the former if it
+   * is created later on
+   * @param sourceValue_p a non-null element of the source scope which has no counterpart
+   * @param holderMatch_p a non-null match whose element references sourceValue_p
+   */
+  private void registerPendingReference(E sourceValue_p, IMatch<E> holderMatch_p) {
+    List<IMatch<E>> holders = _pendingReferences.get(sourceValue_p);
+    if (holders == null) {
+      holders = new ArrayList<IMatch<E>>(1);
+      _pendingReferences.put(sourceValue_p, holders);
+    }
+    if (holders.isEmpty() || holders.get(holders.size() - 1) != holderMatch_p) {
+      holders.add(holderMatch_p);
+    }
+  }
+  
   /**
    * Set the comparison which defines the behavioral context of this copier
    * @param comparison_p a non-null comparison
@@ -277,4 +502,67 @@ public class UnidirectionalComparisonCopier<E> {
     }
   }
   
+  /**
+   * Set the IDs of all the elements completed by this copier
+   */
+  protected void setIDs() {
+    setIDs(getCompletedMatches());
+  }
+  
+  /**
+   * Set the IDs of the elements of the given matches completed by this copier
+   * @param updatedMatches_p a non-null collection of completed matches
+   */
+  protected void setIDs(Collection<? extends IMatch<E>> updatedMatches_p) {
+    // Update of containments may have changed physical storage, which may have an impact on IDs
+    if (_mergePolicy != null) {
+      for (IMatch<E> updatedMatch : updatedMatches_p) {
+        E source = updatedMatch.get(_sourceRole);
+        E target = updatedMatch.get(_sourceRole.opposite());
+        _mergePolicy.setID(source, _sourceScope, target, _destinationScope);
+      }
+    }
+  }
+  
+  /**
+   * Record that the element of the given match has been added through a containment
+   * @param valueMatch_p a non-null, non-partial match
+   */
+  private void valueContained(IMatch<E> valueMatch_p) {
+    if (_containedMatches != null && isCompleted(valueMatch_p)) {
+      _containedMatches.add(valueMatch_p);
+    }
+  }
+  
+  /**
+   * Update the index of completed matches w.r.t. the completed matches of the mapping.
+   * Completed matches are assumed to be only appended, so that the index only needs
+   * to cover the new ones; any other change results in the index being rebuilt.
+   */
+  private void updateCompletedMatchIndex() {
+    Collection<IMatch<E>> completedMatches = getCompletedMatches();
+    int nbCompleted = completedMatches.size();
+    int nbIndexed = _completedMatchIndex.size();
+    if (nbCompleted == nbIndexed && completedMatches == _indexedMatches) {
+      return; // Fast path
+    }
+    List<IMatch<E>> completedMatchList = getCompletedMatchList();
+    boolean upToDate = completedMatches == _indexedMatches &&
+        completedMatches instanceof List<?> && nbCompleted >= nbIndexed &&
+        (nbIndexed == 0 || completedMatchList.get(nbIndexed - 1) == _lastIndexedMatch);
+    if (!upToDate) {
+      _indexedMatches = completedMatches;
+      _completedMatchIndex.clear();
+      _lastIndexedMatch = null;
+      _pendingReferences.clear();
+      _pendingReferencesKnown = false;
+      nbIndexed = 0;
+    }
+    for (IMatch<E> completedMatch : completedMatchList.subList(nbIndexed, nbCompleted)) {
+      _completedMatchIndex.put(completedMatch, Integer.valueOf(nbIndexed));
+      _lastIndexedMatch = completedMatch;
+      nbIndexed++;
+    }
+  }
+  
 }
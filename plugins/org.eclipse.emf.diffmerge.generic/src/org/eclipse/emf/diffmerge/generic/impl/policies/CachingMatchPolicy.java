@@ -21,6 +21,10 @@ import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
 /**
  * A match policy that supports caching of match IDs.
  * Caching is disabled by default. Matching is by unique IDs by default.
+ * Cached match IDs are held strongly until the cache is cleared, which happens at the
+ * end of the matching phase of a comparison unless the cache is retained, in which
+ * case the cached match IDs of modified elements must be invalidated explicitly.
+ * The cache supports concurrent computations of match IDs.
  *
  * @param <E> The type of data elements.
  * 
@@ -32,9 +36,16 @@ public class CachingMatchPolicy<E> extends DefaultMatchPolicy<E> {
    * absent match IDs */
   protected static final Object NULL_MATCH_ID = new Object();
   
-  /** The cache for match IDs */
+  /**
+   * The former cache for match IDs, which is no longer filled nor consulted
+   * @deprecated Use _matchIDCache or getCache() instead
+   */
+  @Deprecated
   protected final Map<E, WeakReference<Object>> _matchCache;
   
+  /** The non-null cache for match IDs */
+  protected final MatchIDCache<E> _matchIDCache;
+  
   
   /**
    * Constructor
@@ -42,6 +53,24 @@ public class CachingMatchPolicy<E> extends DefaultMatchPolicy<E> {
   public CachingMatchPolicy() {
     super();
     _matchCache = new WeakHashMap<E, WeakReference<Object>>();
+    _matchIDCache = new MatchIDCache<E>();
+  }
+  
+  /**
+   * Remove all match IDs from the cache
+   */
+  public void clearCache() {
+    _matchIDCache.clear();
+    _matchCache.clear();
+  }
+  
+  /**
+   * Return the cache for match IDs, which allows setting a bound, consulting
+   * hit and miss counters and invalidating entries
+   * @return a non-null cache
+   */
+  public MatchIDCache<E> getCache() {
+    return _matchIDCache;
   }
   
   /**
@@ -68,13 +97,12 @@ public class CachingMatchPolicy<E> extends DefaultMatchPolicy<E> {
   protected Object getMatchIDThroughCache(E element_p,
       ITreeDataScope<E> scope_p) {
     Object result;
-    WeakReference<Object> cachedRef = _matchCache.get(element_p);
-    Object cachedValue = (cachedRef == null)? null: cachedRef.get();
+    Object cachedValue = _matchIDCache.get(element_p);
     if (cachedValue == null) {
       // Match ID is not in cache
       result = getUncachedMatchID(element_p, scope_p);
       Object toCache = (result == null)? NULL_MATCH_ID: result;
-      _matchCache.put(element_p, new WeakReference<Object>(toCache));
+      _matchIDCache.put(element_p, toCache);
     } else {
       // Match ID is in cache
       result = (cachedValue == NULL_MATCH_ID)? null: cachedValue;
@@ -94,6 +122,40 @@ public class CachingMatchPolicy<E> extends DefaultMatchPolicy<E> {
     return super.getMatchID(element_p, scope_p);
   }
   
+  /**
+   * Remove the cached match ID of the given element, if any, for example because
+   * a merge changed its name or container.
+   * Match IDs of its descendants may also need to be invalidated if they depend on it.
+   * @param element_p a non-null element
+   */
+  public void invalidate(E element_p) {
+    _matchIDCache.invalidate(element_p);
+  }
+  
+  /**
+   * Remove the cached match IDs of the given element and of all its descendants
+   * in the given scope, for example because a merge changed its name or container
+   * and the match IDs of its descendants are qualified by it.
+   * @param element_p a non-null element
+   * @param scope_p a non-null scope that covers the element
+   */
+  public void invalidate(E element_p, ITreeDataScope<E> scope_p) {
+    invalidate(element_p);
+    for (E child : scope_p.getContents(element_p)) {
+      invalidate(child, scope_p);
+    }
+  }
+  
+  /**
+   * Return whether cached match IDs must be kept from one comparison to the next
+   * instead of being cleared at the end of the matching phase.
+   * If so, invalidate must be called on the elements that are modified in between.
+   */
+  public boolean isCacheRetained() {
+    // Override to keep cached match IDs from one comparison to the next
+    return false;
+  }
+  
   /**
    * Return whether the cache must be used
    */
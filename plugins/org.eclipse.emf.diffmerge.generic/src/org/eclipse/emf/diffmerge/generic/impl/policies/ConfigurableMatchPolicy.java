@@ -120,6 +120,7 @@ implements IConfigurablePolicy {
       if (policy_p instanceof ConfigurableMatchPolicy) {
         ConfigurableMatchPolicy policy = (ConfigurableMatchPolicy)policy_p;
         setUseCache(policy.useCache());
+        getCache().setCapacity(policy.getCache().getCapacity());
         result = true;
       }
     }
@@ -0,0 +1,270 @@
+/*********************************************************************
+ * Copyright (c) 2026 agent
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ **********************************************************************/
+package org.eclipse.emf.diffmerge.generic.impl.policies;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A cache of match IDs that holds its entries strongly, optionally within a maximal
+ * number of entries beyond which the least recently used entries are evicted.
+ * Elements are compared by reference. It keeps count of hits and misses and it
+ * supports concurrent accesses: entries are distributed over stripes which are
+ * locked independently, so the bound and the eviction order are enforced per stripe.
+ *
+ * @param <E> The type of data elements.
+ * 
+ * @author agent
+ */
+public class MatchIDCache<E> {
+  
+  /** The capacity that represents the absence of bound */
+  public static final int UNBOUNDED = -1;
+  
+  /** The number of stripes, which is a power of 2 */
+  private static final int NB_STRIPES = 16;
+  
+  /** The non-null list of NB_STRIPES maps of entries, in access order */
+  private final List<Map<IdentityKey, Object>> _stripes;
+  
+  /** The maximal number of entries, or UNBOUNDED */
+  private volatile int _capacity;
+  
+  /** The non-null number of successful look-ups */
+  private final LongAdder _hitCount;
+  
+  /** The non-null number of failed look-ups */
+  private final LongAdder _missCount;
+  
+  
+  /**
+   * Constructor for an unbounded cache
+   */
+  public MatchIDCache() {
+    this(UNBOUNDED);
+  }
+  
+  /**
+   * Constructor
+   * @param capacity_p the positive maximal number of entries, or UNBOUNDED
+   */
+  public MatchIDCache(int capacity_p) {
+    _capacity = capacity_p;
+    _stripes = new ArrayList<Map<IdentityKey, Object>>(NB_STRIPES);
+    for (int i = 0; i < NB_STRIPES; i++) {
+      _stripes.add(new LinkedHashMap<IdentityKey, Object>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        /**
+         * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<IdentityKey, Object> eldest_p) {
+          return isBounded() && size() > getStripeCapacity();
+        }
+      });
+    }
+    _hitCount = new LongAdder();
+    _missCount = new LongAdder();
+  }
+  
+  /**
+   * Remove all entries from this cache. Counters are not reset.
+   */
+  public void clear() {
+    for (Map<IdentityKey, Object> stripe : _stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+  
+  /**
+   * Return the value cached for the given element, if any, and count the look-up
+   * as a hit or a miss accordingly
+   * @param element_p a non-null element
+   * @return a potentially null object, where null stands for a miss
+   */
+  public Object get(E element_p) {
+    IdentityKey key = new IdentityKey(element_p);
+    Map<IdentityKey, Object> stripe = getStripe(key);
+    Object result;
+    synchronized (stripe) {
+      result = stripe.get(key);
+    }
+    if (result == null) {
+      _missCount.increment();
+    } else {
+      _hitCount.increment();
+    }
+    return result;
+  }
+  
+  /**
+   * Return the maximal number of entries of this cache
+   * @return a positive int or UNBOUNDED
+   */
+  public int getCapacity() {
+    return _capacity;
+  }
+  
+  /**
+   * Return the number of successful look-ups since creation or last reset of counters
+   * @return a positive long
+   */
+  public long getHitCount() {
+    return _hitCount.sum();
+  }
+  
+  /**
+   * Return the number of failed look-ups since creation or last reset of counters
+   * @return a positive long
+   */
+  public long getMissCount() {
+    return _missCount.sum();
+  }
+  
+  /**
+   * Return the stripe of the given key
+   * @param key_p a non-null key
+   * @return a non-null map
+   */
+  private Map<IdentityKey, Object> getStripe(IdentityKey key_p) {
+    int hash = key_p.hashCode();
+    return _stripes.get((hash ^ (hash >>> 16)) & (NB_STRIPES - 1));
+  }
+  
+  /**
+   * Return the maximal number of entries of each stripe, assuming the cache is bounded
+   * @return a positive int
+   */
+  private int getStripeCapacity() {
+    return (_capacity + NB_STRIPES - 1) / NB_STRIPES;
+  }
+  
+  /**
+   * Remove the entry of the given element, if any.
+   * Note that the entries of elements whose values depend on the given element,
+   * such as its descendants when IDs are qualified, are not removed.
+   * @param element_p a non-null element
+   * @return whether an entry has been removed
+   */
+  public boolean invalidate(E element_p) {
+    IdentityKey key = new IdentityKey(element_p);
+    Map<IdentityKey, Object> stripe = getStripe(key);
+    synchronized (stripe) {
+      return stripe.remove(key) != null;
+    }
+  }
+  
+  /**
+   * Return whether the number of entries of this cache is bounded
+   */
+  public boolean isBounded() {
+    return _capacity != UNBOUNDED;
+  }
+  
+  /**
+   * Cache the given value for the given element
+   * @param element_p a non-null element
+   * @param value_p a non-null object
+   */
+  public void put(E element_p, Object value_p) {
+    IdentityKey key = new IdentityKey(element_p);
+    Map<IdentityKey, Object> stripe = getStripe(key);
+    synchronized (stripe) {
+      stripe.put(key, value_p);
+    }
+  }
+  
+  /**
+   * Reset the hit and miss counters
+   */
+  public void resetCounters() {
+    _hitCount.reset();
+    _missCount.reset();
+  }
+  
+  /**
+   * Set the maximal number of entries of this cache, evicting the least
+   * recently used entries of each stripe if needed
+   * @param capacity_p the positive maximal number of entries, or UNBOUNDED
+   */
+  public void setCapacity(int capacity_p) {
+    _capacity = capacity_p;
+    if (isBounded()) {
+      int stripeCapacity = getStripeCapacity();
+      for (Map<IdentityKey, Object> stripe : _stripes) {
+        synchronized (stripe) {
+          Iterator<IdentityKey> it = stripe.keySet().iterator();
+          while (stripe.size() > stripeCapacity && it.hasNext()) {
+            it.next();
+            it.remove();
+          }
+        }
+      }
+    }
+  }
+  
+  /**
+   * Return the number of entries of this cache
+   * @return a positive int
+   */
+  public int size() {
+    int result = 0;
+    for (Map<IdentityKey, Object> stripe : _stripes) {
+      synchronized (stripe) {
+        result += stripe.size();
+      }
+    }
+    return result;
+  }
+  
+  
+  /**
+   * A key that wraps an element so that it is compared by reference.
+   */
+  private static final class IdentityKey {
+    /** The non-null wrapped element */
+    private final Object _element;
+    /** The identity hash code of the element */
+    private final int _hash;
+    /**
+     * Constructor
+     * @param element_p the non-null element to wrap
+     */
+    IdentityKey(Object element_p) {
+      _element = element_p;
+      _hash = System.identityHashCode(element_p);
+    }
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object object_p) {
+      return object_p instanceof IdentityKey &&
+          ((IdentityKey)object_p)._element == _element;
+    }
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+      return _hash;
+    }
+  }
+  
+}
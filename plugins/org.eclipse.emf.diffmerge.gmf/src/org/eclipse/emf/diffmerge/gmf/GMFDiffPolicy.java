@@ -15,6 +15,7 @@ import java.util.List;
 
 import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
 import org.eclipse.emf.diffmerge.impl.policies.ConfigurableDiffPolicy;
+import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.gmf.runtime.notation.NotationPackage;
@@ -49,6 +50,21 @@ public class GMFDiffPolicy extends ConfigurableDiffPolicy {
     return result;
   }
   
+  /**
+   * @see org.eclipse.emf.diffmerge.impl.policies.ConfigurableDiffPolicy#considerEqualByKey(java.lang.Object, org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope)
+   */
+  @Override
+  public boolean considerEqualByKey(Object attribute_p, ITreeDataScope<EObject> scope_p) {
+    boolean result = super.considerEqualByKey(attribute_p, scope_p) &&
+        !NotationPackage.eINSTANCE.getRelativeBendpoints_Points().equals(attribute_p);
+    if (result && attribute_p instanceof EAttribute) {
+      // RelativeBendpoint does not redefine Object::equals nor Object::hashCode
+      Class<?> type = ((EAttribute)attribute_p).getEAttributeType().getInstanceClass();
+      result = type != null && !type.isAssignableFrom(RelativeBendpoint.class);
+    }
+    return result;
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.impl.policies.ConfigurableDiffPolicy#doConsiderOrdered(org.eclipse.emf.ecore.EStructuralFeature)
    */
@@ -115,7 +115,7 @@ public class GMFMatchPolicy extends ConfigurableMatchPolicy {
     // Based on container ID and source
     EObject container = getContainer(annotation_p, scope_p);
     if (container != null) {
-      String containerID = getMatchID(container, scope_p);
+      String containerID = getContainerID(container, scope_p);
       if (containerID != null) {
         String annotationSource = annotation_p.getSource();
         Map<String, String> map = new ComparableTreeMap<String, String>();
@@ -166,7 +166,7 @@ public class GMFMatchPolicy extends ConfigurableMatchPolicy {
     // Based on class name, containing feature, container ID and given view type
     EObject container = getContainer(element_p, scope_p);
     if (container != null) {
-      String containerID = getMatchID(container, scope_p);
+      String containerID = getContainerID(container, scope_p);
       if (containerID != null) {
         Map<String, String> map = new ComparableTreeMap<String, String>();
         map.put(SEMANTIC_ID_CLASS_NAME_PROPERTY, element_p.eClass().getName());
@@ -194,7 +194,7 @@ public class GMFMatchPolicy extends ConfigurableMatchPolicy {
     if (entry_p instanceof Entry) {
       EObject container = getContainer(entry_p, scope_p);
       if (container != null) {
-        String containerID = getMatchID(container, scope_p);
+        String containerID = getContainerID(container, scope_p);
         if (containerID != null) {
           Map<String, String> map = new ComparableTreeMap<String, String>();
           Entry<?, ?> asEntry = (Entry<?, ?>) entry_p;
@@ -341,7 +341,7 @@ public class GMFMatchPolicy extends ConfigurableMatchPolicy {
     String result = null;
     EObject container = getContainer(view_p, scope_p);
     if (container != null) {
-      String containerID = getMatchID(container, scope_p);
+      String containerID = getContainerID(container, scope_p);
       if (containerID != null) {
         Map<String, String> map = new ComparableTreeMap<String, String>();
         map.put(SEMANTIC_ID_TYPE_PROPERTY, view_p.eClass().getName());
@@ -90,6 +90,16 @@ public class SiriusDiffPolicy extends GMFDiffPolicy {
     }
     return result;
   }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.gmf.GMFDiffPolicy#considerEqualByKey(java.lang.Object, org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope)
+   */
+  @Override
+  public boolean considerEqualByKey(Object attribute_p, ITreeDataScope<EObject> scope_p) {
+    return super.considerEqualByKey(attribute_p, scope_p) &&
+        ViewpointPackage.eINSTANCE.getDAnalysis_SemanticResources() != attribute_p &&
+        DiagramPackage.eINSTANCE.getWorkspaceImage_WorkspacePath() != attribute_p;
+  }
 
   /**
    * @see org.eclipse.emf.diffmerge.impl.policies.DefaultDiffPolicy#coverReference(java.lang.Object, org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope)
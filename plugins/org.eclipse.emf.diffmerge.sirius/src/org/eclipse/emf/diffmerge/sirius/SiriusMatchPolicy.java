@@ -11,6 +11,7 @@
  **********************************************************************/
 package org.eclipse.emf.diffmerge.sirius;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -49,6 +50,9 @@ public class SiriusMatchPolicy extends GMFMatchPolicy {
   /** A representation of the corresponding semantic property */
   protected static final String SEMANTIC_ID_INDEX_PROPERTY = "SEMANTIC_ID_INDEX_PROPERTY"; //$NON-NLS-1$
   
+  /** The discriminator of the indexes of the children of containers by view type */
+  protected static final Object VIEW_TYPE_INDEX_DISCRIMINATOR = new Object();
+  
   /** The set of GMF ViewTypes for which no semantic ID is supported. With Sirius, GMF Notes can have sub items. */
   protected static final Collection<String> NON_SEMANTIC_SIRIUS_VIEWTYPES = Arrays.asList(
       "Description", "DiagramName"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -210,7 +214,7 @@ public class SiriusMatchPolicy extends GMFMatchPolicy {
     Map<String, String> map = new ComparableTreeMap<String, String>();
     EObject container = getContainer(noteAttachment_p, scope_p);
     if (container != null) {
-      String containerID = getMatchID(container, scope_p);
+      String containerID = getContainerID(container, scope_p);
       if (containerID != null) {
         int noteIndex = getNoteAttachmentIndex(noteAttachment_p, container, scope_p);
         if (noteIndex != -1) {
@@ -255,7 +259,16 @@ public class SiriusMatchPolicy extends GMFMatchPolicy {
       ITreeDataScope<EObject> scope_p) {
     int noteIndex = -1;
     String type = note_p.getType();
-    for (EObject child : getContents(container_p, scope_p)) {
+    List<EObject> children = getContents(container_p, scope_p);
+    if (children.size() > SIBLING_INDEXING_THRESHOLD) {
+      SiblingTypeIndex index = getViewTypeIndex(container_p, children, scope_p);
+      noteIndex = index.getRank(note_p);
+      if (noteIndex == -1) {
+        noteIndex = index.getCount(type) - 1;
+      }
+      return noteIndex;
+    }
+    for (EObject child : children) {
       if (child instanceof View && type.equals(((View)child).getType())) {
         noteIndex++;
         if (child == note_p) {
@@ -277,7 +290,7 @@ public class SiriusMatchPolicy extends GMFMatchPolicy {
     // Based on container ID, view type and index in the containing list
     EObject container = getContainer(note_p, scope_p);
     if (container != null) {
-      String containerID = getMatchID(container, scope_p);
+      String containerID = getContainerID(container, scope_p);
       if (containerID != null) {
         int noteIndex = getNoteIndex(note_p, container, scope_p);
         if (noteIndex != -1) {
@@ -337,7 +350,33 @@ public class SiriusMatchPolicy extends GMFMatchPolicy {
    */
   protected int getSiblingIndex(EObject element_p, ITreeDataScope<EObject> scope_p) {
     List<EObject> elements = getSiblings(element_p, scope_p);
-    return elements.indexOf(element_p);
+    if (elements.size() <= SIBLING_INDEXING_THRESHOLD) {
+      return elements.indexOf(element_p);
+    }
+    return getSiblingPositionIndex(element_p, elements, scope_p).getPosition(element_p);
+  }
+  
+  /**
+   * Return the index of the given children of the given container where types
+   * are view types. The index is built lazily and kept until the cache is cleared.
+   * @param container_p a non-null element
+   * @param children_p the non-null children of container_p
+   * @param scope_p a non-null scope that covers container_p
+   * @return a non-null index
+   */
+  protected SiblingTypeIndex getViewTypeIndex(EObject container_p, List<EObject> children_p,
+      ITreeDataScope<EObject> scope_p) {
+    SiblingTypeIndex result = getSiblingTypeIndex(
+        container_p, VIEW_TYPE_INDEX_DISCRIMINATOR, scope_p);
+    if (result == null) {
+      List<Object> types = new ArrayList<Object>(children_p.size());
+      for (EObject child : children_p) {
+        types.add((child instanceof View)? ((View)child).getType(): null);
+      }
+      result = registerSiblingTypeIndex(container_p, VIEW_TYPE_INDEX_DISCRIMINATOR,
+          new SiblingTypeIndex(children_p, types), scope_p);
+    }
+    return result;
   }
   
   /**
@@ -351,7 +390,7 @@ public class SiriusMatchPolicy extends GMFMatchPolicy {
     String result = null;
     EObject container = getContainer(element_p, scope_p);
     if (container != null) {
-      String containerID = getMatchID(container, scope_p);
+      String containerID = getContainerID(container, scope_p);
       if (containerID != null) {
         int noteIndex = getSiblingIndex(element_p, scope_p);
         if (noteIndex != -1) {
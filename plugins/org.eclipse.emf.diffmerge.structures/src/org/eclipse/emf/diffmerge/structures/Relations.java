@@ -11,6 +11,7 @@
  **********************************************************************/
 package org.eclipse.emf.diffmerge.structures;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -21,6 +22,8 @@ import org.eclipse.emf.diffmerge.structures.binary.IBinaryRelation;
 import org.eclipse.emf.diffmerge.structures.binary.IRangedBinaryRelation;
 import org.eclipse.emf.diffmerge.structures.binary.qualified.IQBinaryRelation;
 import org.eclipse.emf.diffmerge.structures.binary.qualified.IRangedQBinaryRelation;
+import org.eclipse.emf.diffmerge.structures.common.FArrayList;
+import org.eclipse.emf.diffmerge.structures.common.FHashMap;
 import org.eclipse.emf.diffmerge.structures.common.FHashSet;
 import org.eclipse.emf.diffmerge.structures.common.FLinkedList;
 import org.eclipse.emf.diffmerge.structures.endo.IEndorelation;
@@ -104,33 +107,6 @@ public final class Relations {
     return result;
   }
   
-  /**
-   * Return the index of the first element in the given list which is mapped to
-   * the given element by the given endorelation, or the index of the last+1 element
-   * if none.
-   * This algorithm solely relies on IEndorelation#get(Object).
-   * @param endorelation_p a non-null endorelation
-   * @param element_p a non-null element
-   * @param elements_p a non-null list of elements
-   * @return the min of indexes or elements_p.size() if there exists no mapped element
-   *         belonging to elements_p
-   */
-  protected static <T> int endoMinIndexOfMappingElements(IEndorelation<T> endorelation_p,
-      T element_p, List<T> elements_p) {
-    final int size = elements_p.size();
-    int result = size;
-    int currentIndex = 0;
-    Iterator<T> it = elements_p.iterator();
-    while (result == size && it.hasNext()) {
-      T current = it.next();
-      Collection<T> mapped = endorelation_p.get(current);
-      if (mapped.contains(element_p))
-        result = currentIndex;
-      currentIndex++;
-    }
-    return result;
-  }
-  
   /**
    * @see org.eclipse.emf.diffmerge.structures.endo.IEndorelation#getTransitiveClosure(Object)
    * This algorithm solely relies on IEndorelation#get(Object).
@@ -142,28 +118,70 @@ public final class Relations {
   
   /**
    * @see org.eclipse.emf.diffmerge.structures.endo.IEndorelation#getTransitiveClosure(Collection)
-   * This algorithm solely relies on IEndorelation#get(Object).
+   * This algorithm solely relies on IEndorelation#get(Object), which it invokes
+   * exactly once per element of the closure.
    */
   public static <T> List<T> endoTransitiveClosure(IEndorelation<T> endorelation_p,
       Collection<? extends T> elements_p) {
     // Implementation is iterative, not recursive, for scalability reasons.
-    // We use LinkedLists instead of HashSets because we need to preserve a
-    // partial order even though it has a cost in performance on contains(Object)
+    // Elements are first discovered breadth-first with hash-based membership,
+    // then ordered by a depth-first post-order pass over the discovered subgraph
+    // so that every element comes after the elements it is mapped to, as far as
+    // cycles permit.
     IEqualityTester tester = endorelation_p.getEqualityTester();
-    List<T> result = new FLinkedList<T>(tester);
-    List<T> toExplore = new FLinkedList<T>(tester);
-    toExplore.addAll(elements_p);
-    while (!toExplore.isEmpty()) {
-      T current = toExplore.get(0);
-      toExplore.remove(current);
-      if (!result.contains(current)) {
-        int index = endoMinIndexOfMappingElements(endorelation_p, current, result);
-        result.add(index, current);
-        Collection<T> targets = endorelation_p.get(current);
-        toExplore.addAll(targets);
+    FHashMap<T, Integer> indexes = new FHashMap<T, Integer>(tester);
+    List<T> discovered = new ArrayList<T>();
+    for (T element : elements_p) {
+      if (!indexes.containsKey(element)) {
+        indexes.put(element, Integer.valueOf(discovered.size()));
+        discovered.add(element);
+      }
+    }
+    final int nbStarting = discovered.size();
+    // Discovery: single visit per element
+    List<Collection<T>> images = new ArrayList<Collection<T>>();
+    for (int i = 0; i < discovered.size(); i++) {
+      Collection<T> image = endorelation_p.get(discovered.get(i));
+      images.add(image);
+      for (T target : image) {
+        if (!indexes.containsKey(target)) {
+          indexes.put(target, Integer.valueOf(discovered.size()));
+          discovered.add(target);
+        }
+      }
+    }
+    // Ordering: post-order, roots and images taken in discovery order
+    final int nbDiscovered = discovered.size();
+    List<T> result = new FArrayList<T>(nbDiscovered - nbStarting, tester);
+    boolean[] visited = new boolean[nbDiscovered];
+    int[] stack = new int[nbDiscovered];
+    List<Iterator<T>> iterators = new ArrayList<Iterator<T>>(nbDiscovered);
+    for (int root = 0; root < nbDiscovered; root++) {
+      if (visited[root])
+        continue;
+      visited[root] = true;
+      int depth = 0;
+      stack[0] = root;
+      iterators.add(images.get(root).iterator());
+      while (depth >= 0) {
+        Iterator<T> it = iterators.get(depth);
+        if (it.hasNext()) {
+          int next = indexes.get(it.next()).intValue();
+          if (!visited[next]) {
+            visited[next] = true;
+            depth++;
+            stack[depth] = next;
+            iterators.add(images.get(next).iterator());
+          }
+        } else {
+          int done = stack[depth];
+          if (done >= nbStarting)
+            result.add(discovered.get(done));
+          iterators.remove(depth);
+          depth--;
+        }
       }
     }
-    result.removeAll(elements_p);
     return Collections.unmodifiableList(result);
   }
   
@@ -0,0 +1,264 @@
+/*********************************************************************
+ * Copyright (c) 2026 agent
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent - initial API and implementation
+ **********************************************************************/
+package org.eclipse.emf.diffmerge.structures.common;
+
+import java.util.Collection;
+
+import org.eclipse.emf.diffmerge.structures.IEqualityTester;
+
+
+/**
+ * An ordered set which supports user-defined equality functions and whose membership
+ * tests rely on a hash index as soon as it is large enough, so that contains(Object)
+ * and add(E) take constant time instead of O(n). The hash index is consistent with the
+ * equality tester of the set: it is based on IEqualityTester#hashCodeFor(Object),
+ * e.g., identity hash codes for IEqualityTester#BY_REFERENCE.
+ * The index is built lazily and maintained by all operations that change the
+ * contents of the set, except direct modifications of the underlying data array.
+ * The "F" prefix stands for "Flexible".
+ * @see FOrderedSet
+ * @author agent
+ */
+public class FIndexedOrderedSet<E> extends FOrderedSet<E> {
+  
+  /** The serial version ID */
+  private static final long serialVersionUID = 1L;
+  
+  /** The size above which the hash index is used */
+  protected static final int INDEXING_THRESHOLD = 16;
+  
+  /** The hash index of the elements, null if not built yet */
+  private transient FHashSet<E> _index;
+  
+  
+  /**
+   * Constructor for empty set with default equality tester
+   */
+  public FIndexedOrderedSet() {
+    super();
+  }
+  
+  /**
+   * Constructor for empty set
+   * @param tester_p the equality tester (null for default tester)
+   */
+  public FIndexedOrderedSet(IEqualityTester tester_p) {
+    super(tester_p);
+  }
+  
+  /**
+   * Constructor for empty set with the given initial capacity
+   * @param tester_p the equality tester (null for default tester)
+   */
+  public FIndexedOrderedSet(int initialCapacity_p, IEqualityTester tester_p) {
+    super(initialCapacity_p, tester_p);
+  }
+  
+  /**
+   * Constructor for a set filled with the elements of the given collection
+   * @param collection_p a non-null, potentially empty collection
+   */
+  public FIndexedOrderedSet(Collection<? extends E> collection_p)  {
+    super(collection_p);
+  }
+  
+  /**
+   * Constructor for a set filled with the elements of the given collection
+   * @param collection_p a non-null, potentially empty collection
+   * @param tester_p the equality tester (null for default tester)
+   */
+  public FIndexedOrderedSet(Collection<? extends E> collection_p,
+      IEqualityTester tester_p)  {
+    super(collection_p, tester_p);
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#addAllUnique(java.util.Collection)
+   */
+  @Override
+  public boolean addAllUnique(Collection<? extends E> collection_p) {
+    boolean result = super.addAllUnique(collection_p);
+    if (_index != null) {
+      _index.addAll(collection_p);
+    }
+    return result;
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#addAllUnique(int, java.util.Collection)
+   */
+  @Override
+  public boolean addAllUnique(int index_p, Collection<? extends E> collection_p) {
+    boolean result = super.addAllUnique(index_p, collection_p);
+    if (_index != null) {
+      _index.addAll(collection_p);
+    }
+    return result;
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#addAllUnique(java.lang.Object[], int, int)
+   */
+  @Override
+  public boolean addAllUnique(Object[] objects_p, int start_p, int end_p) {
+    boolean result = super.addAllUnique(objects_p, start_p, end_p);
+    indexAll(objects_p, start_p, end_p);
+    return result;
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#addAllUnique(int, java.lang.Object[], int, int)
+   */
+  @Override
+  public boolean addAllUnique(int index_p, Object[] objects_p, int start_p, int end_p) {
+    boolean result = super.addAllUnique(index_p, objects_p, start_p, end_p);
+    indexAll(objects_p, start_p, end_p);
+    return result;
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#addUnique(java.lang.Object)
+   */
+  @Override
+  public void addUnique(E object_p) {
+    super.addUnique(object_p);
+    if (_index != null) {
+      _index.add(object_p);
+    }
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#addUnique(int, java.lang.Object)
+   */
+  @Override
+  public void addUnique(int index_p, E object_p) {
+    super.addUnique(index_p, object_p);
+    if (_index != null) {
+      _index.add(object_p);
+    }
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#clear()
+   */
+  @Override
+  public void clear() {
+    super.clear();
+    _index = null;
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#clone()
+   */
+  @Override
+  public Object clone() {
+    FIndexedOrderedSet<?> result = (FIndexedOrderedSet<?>)super.clone();
+    result._index = null;
+    return result;
+  }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.structures.common.FArrayList#contains(java.lang.Object)
+   */
+  @Override
+  public boolean contains(Object object_p) {
+    FHashSet<E> index = getIndex();
+    return (index != null)? index.contains(object_p): super.contains(object_p);
+  }
+  
+  /**
+   * Return the hash index of the elements, building it if the set is large enough
+   * @return an index, or null if the set is too small to be indexed
+   */
+  protected FHashSet<E> getIndex() {
+    if (_index == null && size > INDEXING_THRESHOLD) {
+      FHashSet<E> index = new FHashSet<E>(2 * size, getEqualityTester());
+      for (int i = 0; i < size; i++) {
+        @SuppressWarnings("unchecked")
+        E element = (E)data[i];
+        index.add(element);
+      }
+      _index = index;
+    }
+    return _index;
+  }
+  
+  /**
+   * Add the given range of objects to the hash index if it is built
+   * @param objects_p a non-null array
+   * @param start_p the index of the first object, inclusive
+   * @param end_p the index of the last object, exclusive
+   */
+  @SuppressWarnings("unchecked")
+  private void indexAll(Object[] objects_p, int start_p, int end_p) {
+    if (_index != null) {
+      for (int i = start_p; i < end_p; i++) {
+        _index.add((E)objects_p[i]);
+      }
+    }
+  }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.structures.common.FArrayList#indexOf(java.lang.Object)
+   */
+  @Override
+  public int indexOf(Object object_p) {
+    FHashSet<E> index = getIndex();
+    if (index != null && !index.contains(object_p)) {
+      return -1;
+    }
+    return super.indexOf(object_p);
+  }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.structures.common.FArrayList#lastIndexOf(java.lang.Object)
+   */
+  @Override
+  public int lastIndexOf(Object object_p) {
+    return indexOf(object_p); // No duplicates
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#remove(int)
+   */
+  @Override
+  public E remove(int index_p) {
+    E result = super.remove(index_p);
+    if (_index != null) {
+      _index.remove(result);
+    }
+    return result;
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#setData(int, java.lang.Object[])
+   */
+  @Override
+  public void setData(int size_p, Object[] data_p) {
+    super.setData(size_p, data_p);
+    _index = null;
+  }
+  
+  /**
+   * @see org.eclipse.emf.common.util.BasicEList#setUnique(int, java.lang.Object)
+   */
+  @Override
+  public E setUnique(int index_p, E object_p) {
+    E result = super.setUnique(index_p, object_p);
+    if (_index != null) {
+      _index.remove(result);
+      _index.add(object_p);
+    }
+    return result;
+  }
+  
+}
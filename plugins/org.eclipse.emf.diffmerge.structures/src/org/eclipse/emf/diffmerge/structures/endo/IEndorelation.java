@@ -33,7 +33,8 @@ public interface IEndorelation<T> extends IBinaryRelation<T, T> {
    * encompassing cycles if there are any
    * @param element_p a non-null element
    * @return a non-null, unmodifiable set of elements excluding element_p
-   *         whose order is that of a breadth-first exploration of the relation graph
+   *         where, as far as cycles permit, every element comes after the elements
+   *         it is mapped to
    */
   List<T> getTransitiveClosure(T element_p);
   
@@ -42,7 +43,8 @@ public interface IEndorelation<T> extends IBinaryRelation<T, T> {
    * encompassing cycles if there are any
    * @param elements_p a non-null, potentially empty collection
    * @return a non-null, unmodifiable set of elements excluding elements_p
-   *         whose order is that of a breadth-first exploration of the relation graph
+   *         where, as far as cycles permit, every element comes after the elements
+   *         it is mapped to
    */
   List<T> getTransitiveClosure(Collection<? extends T> elements_p);
   
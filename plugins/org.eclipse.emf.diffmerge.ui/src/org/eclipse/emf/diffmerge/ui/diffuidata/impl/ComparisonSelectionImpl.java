@@ -33,7 +33,7 @@ import org.eclipse.emf.diffmerge.generic.api.diff.IReferenceValuePresence;
 import org.eclipse.emf.diffmerge.generic.api.diff.IValuePresence;
 import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
 import org.eclipse.emf.diffmerge.structures.common.FArrayList;
-import org.eclipse.emf.diffmerge.structures.common.FOrderedSet;
+import org.eclipse.emf.diffmerge.structures.common.FIndexedOrderedSet;
 import org.eclipse.emf.diffmerge.ui.EMFDiffMergeUIPlugin;
 import org.eclipse.emf.diffmerge.ui.diffuidata.ComparisonSelection;
 import org.eclipse.emf.diffmerge.ui.diffuidata.DiffuidataPackage;
@@ -442,7 +442,7 @@ public class ComparisonSelectionImpl extends EObjectImpl
     if (!getSelectedMatches().isEmpty()) {
       result = getSelectedMatches();
     } else if (!getSelectedValuePresences().isEmpty()) {
-      result = new FOrderedSet<IMatch<?>>();
+      result = new FIndexedOrderedSet<IMatch<?>>();
       for (IValuePresence<?> valuePresence : getSelectedValuePresences()) {
         IMatch<?> match = valuePresence.getElementMatch();
         if (match != null) {
@@ -522,7 +522,7 @@ public class ComparisonSelectionImpl extends EObjectImpl
    * @generated NOT
    */
   protected EList<Object> getConcernedElements() {
-    EList<Object> result = new FOrderedSet<Object>();
+    EList<Object> result = new FIndexedOrderedSet<Object>();
     List<IMatch<?>> matches = asMatches();
     if (matches.isEmpty()) {
       for (IDifference<?> difference : asDifferencesToMerge()) {
@@ -12,8 +12,11 @@
 package org.eclipse.emf.diffmerge.ui.setup;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -37,6 +40,8 @@ import org.eclipse.emf.diffmerge.generic.api.Role;
 import org.eclipse.emf.diffmerge.generic.api.scopes.IEditableTreeDataScope;
 import org.eclipse.emf.diffmerge.generic.api.scopes.IPersistentDataScope;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.GComparison;
+import org.eclipse.emf.diffmerge.generic.impl.helpers.LoadingOperation;
+import org.eclipse.emf.diffmerge.impl.scopes.FragmentedModelScope;
 import org.eclipse.emf.diffmerge.ui.EMFDiffMergeUIPlugin;
 import org.eclipse.emf.diffmerge.ui.Messages;
 import org.eclipse.emf.diffmerge.ui.diffuidata.UIComparison;
@@ -570,6 +575,10 @@ implements IEditingDomainProvider {
     SubMonitor loadingMonitor = SubMonitor.convert(
         monitor_p, mainTaskName, threeWay ? 4 : 3);
     loadingMonitor.worked(1);
+    if (domain == null && haveDistinctResourceSets(threeWay)) {
+      loadScopesConcurrently(loadingMonitor.newChild(threeWay ? 3 : 2));
+      return;
+    }
     // Loading left
     loadingMonitor.subTask(Messages.EMFDiffMergeEditorInput_LoadingLeft);
     Object leftLoadingContext = (domain != null)? domain:
@@ -625,6 +634,77 @@ implements IEditingDomainProvider {
     }
   }
   
+  /**
+   * Return whether the scopes are bound to be loaded in different resource sets
+   * according to the comparison method. This does not hold if the same resource set
+   * is returned for different roles.
+   * @param threeWay_p whether the comparison is three-way
+   */
+  protected boolean haveDistinctResourceSets(boolean threeWay_p) {
+    Role leftRole = getLeftRole();
+    ResourceSet leftResourceSet = _comparisonMethod.getResourceSet(leftRole);
+    ResourceSet rightResourceSet = _comparisonMethod.getResourceSet(leftRole.opposite());
+    ResourceSet ancestorResourceSet = threeWay_p?
+        _comparisonMethod.getResourceSet(Role.ANCESTOR): null;
+    return (leftResourceSet == null || leftResourceSet != rightResourceSet &&
+        leftResourceSet != ancestorResourceSet) &&
+        (rightResourceSet == null || rightResourceSet != ancestorResourceSet);
+  }
+  
+  /**
+   * Return whether the given scopes can be loaded concurrently, that is,
+   * whether they are all fragmented model scopes on different resource sets
+   * @param scopes_p a non-null, potentially empty list of scopes
+   */
+  protected boolean canLoadConcurrently(List<IPersistentDataScope<?>> scopes_p) {
+    Set<ResourceSet> resourceSets = Collections.newSetFromMap(
+        new IdentityHashMap<ResourceSet, Boolean>());
+    for (IPersistentDataScope<?> scope : scopes_p) {
+      if (!(scope instanceof FragmentedModelScope) ||
+          !resourceSets.add(((FragmentedModelScope)scope).getResourceSet())) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Create the model scopes, then load them concurrently if they do not share
+   * any resource set, otherwise sequentially.
+   * Precondition: getEditingDomain() == null
+   * @param monitor_p a non-null monitor for reporting progress
+   */
+  protected void loadScopesConcurrently(IProgressMonitor monitor_p) {
+    Role leftRole = getLeftRole();
+    _leftScope = _comparisonMethod.getModelScopeDefinition(leftRole).createScope(
+        _comparisonMethod.getResourceSet(leftRole));
+    if (_leftScope == null) {
+      throw new RuntimeException(Messages.EMFDiffMergeEditorInput_LeftScopeNull);
+    }
+    _rightScope = _comparisonMethod.getModelScopeDefinition(leftRole.opposite()).createScope(
+        _comparisonMethod.getResourceSet(leftRole.opposite()));
+    if (_rightScope == null) {
+      throw new RuntimeException(Messages.EMFDiffMergeEditorInput_RightScopeNull);
+    }
+    if (_comparisonMethod.isThreeWay()) {
+      _ancestorScope = _comparisonMethod.getModelScopeDefinition(Role.ANCESTOR).createScope(
+          _comparisonMethod.getResourceSet(Role.ANCESTOR));
+      if (_ancestorScope == null) {
+        throw new RuntimeException(Messages.EMFDiffMergeEditorInput_AncestorScopeNull);
+      }
+    }
+    List<IPersistentDataScope<?>> toLoad = new ArrayList<IPersistentDataScope<?>>(3);
+    for (IEditableTreeDataScope<?> scope : new IEditableTreeDataScope<?>[] {
+        _leftScope, _rightScope, _ancestorScope}) {
+      if (scope instanceof IPersistentDataScope<?>) {
+        toLoad.add((IPersistentDataScope<?>)scope);
+      }
+    }
+    LoadingOperation operation = new LoadingOperation(toLoad, canLoadConcurrently(toLoad));
+    IStatus status = operation.run(monitor_p);
+    checkStatus(status);
+  }
+  
   /**
    * Return whether merge can be considered complete
    */
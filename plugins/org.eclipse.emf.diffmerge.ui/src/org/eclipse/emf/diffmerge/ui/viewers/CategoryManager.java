@@ -18,6 +18,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -37,7 +38,7 @@ import org.eclipse.emf.diffmerge.generic.api.diff.IPresenceDifference;
 import org.eclipse.emf.diffmerge.generic.api.diff.IReferenceValuePresence;
 import org.eclipse.emf.diffmerge.generic.api.diff.IValuePresence;
 import org.eclipse.emf.diffmerge.structures.common.FHashMap;
-import org.eclipse.emf.diffmerge.structures.common.FOrderedSet;
+import org.eclipse.emf.diffmerge.structures.common.FIndexedOrderedSet;
 import org.eclipse.emf.diffmerge.ui.EMFDiffMergeUIPlugin;
 import org.eclipse.emf.diffmerge.ui.diffuidata.MatchAndFeature;
 import org.eclipse.emf.diffmerge.ui.util.DifferenceKind;
@@ -68,8 +69,21 @@ public class CategoryManager {
   /** The modifiable (parent, children) map of category items that should be visible in the UI */
   protected final Map<IDifferenceCategorySet, Collection<IDifferenceCategoryItem>> _uiChildrenItems;
   
-  /** The map from matches to difference numbers */
-  private final EMap<IMatch<?>, Integer> _matchToNb;
+  /** The map from matches to their ordinals in the arrays of difference numbers */
+  private final Map<IMatch<?>, Integer> _matchOrdinals;
+  
+  /** The ordinals of the containers of matches in the UI tree, -1 for roots */
+  private int[] _containerOrdinals;
+  
+  /** The numbers of differences on matches, excluding differences on children */
+  private int[] _ownDifferenceNumbers;
+  
+  /** The numbers of differences on matches, including differences on children */
+  private int[] _differenceNumbers;
+  
+  /** The cache of filtering decisions on differences, cleared whenever categories
+   * or differences may have changed state */
+  private final Map<IDifference<?>, Boolean> _filteringDecisions;
   
   
   /**
@@ -83,7 +97,11 @@ public class CategoryManager {
     _defaultConfiguration = new HashSet<IDifferenceCategory>();
     _uiRootItems = new ArrayList<IDifferenceCategoryItem>();
     _uiChildrenItems = new HashMap<IDifferenceCategorySet, Collection<IDifferenceCategoryItem>>();
-    _matchToNb = new FHashMap<IMatch<?>, Integer>();
+    _matchOrdinals = new IdentityHashMap<IMatch<?>, Integer>();
+    _containerOrdinals = new int[0];
+    _ownDifferenceNumbers = new int[0];
+    _differenceNumbers = new int[0];
+    _filteringDecisions = new IdentityHashMap<IDifference<?>, Boolean>();
   }
   
   /**
@@ -127,6 +145,42 @@ public class CategoryManager {
     return result;
   }
   
+  /**
+   * Forget the filtering decisions made so far. This must be called whenever the
+   * states of differences change, e.g., when they are merged or ignored.
+   * Filtering decisions are automatically forgotten on update().
+   * @see #update()
+   */
+  public void clearFilteringCache() {
+    _filteringDecisions.clear();
+  }
+  
+  /**
+   * Return whether the given difference is filtered out by the active categories,
+   * without using the cache of filtering decisions
+   * @param difference_p a non-null difference
+   */
+  protected boolean computeFiltered(IDifference<?> difference_p) {
+    boolean globalFocus = false; // At least one category is in focus mode
+    boolean diffFocus = false; // At least one covering category is in focus mode
+    for (IDifferenceCategory category : _activeCategories) {
+      boolean catFocus = category.isInFocusMode();
+      globalFocus = globalFocus || catFocus;
+      boolean covered = category.covers(difference_p, _node);
+      if (covered) {
+        // Covered by active category
+        if (!catFocus) {
+          // Covered by category in filtering mode
+          return true;
+        }
+        // Else covered by category in focus mode: proceed
+        diffFocus = true;
+      }
+    }
+    // Not filtered out by any category
+    return globalFocus && !diffFocus; // All categories in focus mode are non-covering
+  }
+  
   /**
    * Count and return the number of differences on the given match,
    * excluding differences on children
@@ -215,7 +269,7 @@ public class CategoryManager {
    */
   @SuppressWarnings({ "rawtypes", "unchecked" })
   public List<IMatch<?>> getChildrenForMerge(IMatch<?> match_p) {
-    List<IMatch<?>> result = new FOrderedSet<IMatch<?>>();
+    List<IMatch<?>> result = new FIndexedOrderedSet<IMatch<?>>();
     IComparison<?> comparison = match_p.getMapping().getComparison();
     List<? extends IMatch<?>> candidates = comparison.getContentsOf((IMatch)match_p);
     for (IMatch<?> candidate : candidates) {
@@ -383,19 +437,26 @@ public class CategoryManager {
    * @return a positive int or 0
    */
   public int getDifferenceNumber(IMatch<?> match_p) {
-    Integer currentNb = getMatchToNb().get(match_p);
-    if (currentNb == null) {
-      currentNb = Integer.valueOf(0);
-    }
-    return currentNb.intValue();
+    int ordinal = getOrdinal(match_p);
+    return ordinal < 0? 0: _differenceNumbers[ordinal];
   }
   
   /**
-   * Return the map from matches to differences numbers
-   * @return a non-null, modifiable map
+   * Return a map from matches to differences numbers
+   * @return a non-null, modifiable map which is a snapshot of the current difference
+   *         numbers: modifying it has no effect on this category manager
+   * @deprecated Use getDifferenceNumber(IMatch) instead
    */
+  @Deprecated
   protected EMap<IMatch<?>, Integer> getMatchToNb() {
-    return _matchToNb;
+    EMap<IMatch<?>, Integer> result = new FHashMap<IMatch<?>, Integer>();
+    for (Map.Entry<IMatch<?>, Integer> entry : _matchOrdinals.entrySet()) {
+      int number = _differenceNumbers[entry.getValue().intValue()];
+      if (number > 0) {
+        result.put(entry.getKey(), Integer.valueOf(number));
+      }
+    }
+    return result;
   }
   
   /**
@@ -422,6 +483,16 @@ public class CategoryManager {
     return result;
   }
   
+  /**
+   * Return the ordinal of the given match in the arrays of difference numbers
+   * @param match_p a non-null match
+   * @return a positive int or 0, or -1 if the match is unknown
+   */
+  protected int getOrdinal(IMatch<?> match_p) {
+    Integer result = _matchOrdinals.get(match_p);
+    return result == null? -1: result.intValue();
+  }
+  
   /**
    * Return the difference kind for the ownership of the given match
    * @param match_p a non-null match
@@ -545,14 +616,18 @@ public class CategoryManager {
   }
   
   /**
-   * Increment the number of differences by the given increment for the given match
+   * Increment the number of differences by the given increment for the given match.
+   * Matches that were not known at the last call to updateDifferenceNumbers() are ignored.
    * @param match_p a non-null match
    * @param increment_p a positive int
+   * @deprecated Difference numbers are computed by updateDifferenceNumbers()
    */
+  @Deprecated
   protected void incrementDifferenceNumbers(IMatch<?> match_p, int increment_p) {
-    int currentNb = getDifferenceNumber(match_p);
-    Integer newNb = Integer.valueOf(increment_p + currentNb);
-    getMatchToNb().put(match_p, newNb);
+    int ordinal = getOrdinal(match_p);
+    if (ordinal >= 0) {
+      _differenceNumbers[ordinal] += increment_p;
+    }
   }
   
   /**
@@ -560,9 +635,15 @@ public class CategoryManager {
    * and its parents according to the driving role
    * @param match_p a non-null match
    * @param increment_p a positive int
+   * @deprecated Difference numbers are computed by updateDifferenceNumbers()
    */
+  @Deprecated
   protected void incrementDifferenceNumbersInHierarchy(IMatch<?> match_p, int increment_p) {
     if (increment_p > 0) {
+      int ordinal = getOrdinal(match_p);
+      if (ordinal >= 0) {
+        _ownDifferenceNumbers[ordinal] += increment_p;
+      }
       incrementDifferenceNumbers(match_p, increment_p);
       IMatch<?> current = _node.getContainerOf(match_p);
       while (current != null) {
@@ -613,6 +694,20 @@ public class CategoryManager {
     return result;
   }
   
+  /**
+   * Return whether merging or ignoring the given difference may change the
+   * containment trees, hence the UI tree of matches
+   * @param difference_p a non-null difference
+   */
+  protected boolean isContainmentRelated(IDifference<?> difference_p) {
+    boolean result = difference_p instanceof IElementPresence;
+    if (!result && difference_p instanceof IReferenceValuePresence) {
+      IReferenceValuePresence<?> presence = (IReferenceValuePresence<?>)difference_p;
+      result = presence.isOwnership() || presence.isContainment();
+    }
+    return result;
+  }
+  
   /**
    * Return whether the are still differences that the user has to handle
    */
@@ -635,24 +730,12 @@ public class CategoryManager {
    * @param difference_p a non-null difference
    */
   public boolean isFiltered(IDifference<?> difference_p) {
-    boolean globalFocus = false; // At least one category is in focus mode
-    boolean diffFocus = false; // At least one covering category is in focus mode
-    for (IDifferenceCategory category : _activeCategories) {
-      boolean catFocus = category.isInFocusMode();
-      globalFocus = globalFocus || catFocus;
-      boolean covered = category.covers(difference_p, _node);
-      if (covered) {
-        // Covered by active category
-        if (!catFocus) {
-          // Covered by category in filtering mode
-          return true;
-        }
-        // Else covered by category in focus mode: proceed
-        diffFocus = true;
-      }
+    Boolean result = _filteringDecisions.get(difference_p);
+    if (result == null) {
+      result = Boolean.valueOf(computeFiltered(difference_p));
+      _filteringDecisions.put(difference_p, result);
     }
-    // Not filtered out by any category
-    return globalFocus && !diffFocus; // All categories in focus mode are non-covering
+    return result.booleanValue();
   }
   
   /**
@@ -970,6 +1053,7 @@ public class CategoryManager {
    * Re-compute filtering and differences numbers
    */
   public void update() {
+    clearFilteringCache();
     updateActiveCategories();
     updateUIItems();
     updateDifferenceNumbers();
@@ -988,15 +1072,91 @@ public class CategoryManager {
   }
   
   /**
-   * Re-compute difference numbers
+   * Re-compute difference numbers in a single bottom-up pass over the UI tree of matches
    */
   protected void updateDifferenceNumbers() {
-    getMatchToNb().clear();
+    _matchOrdinals.clear();
     IComparison<?> comparison = _node.getActualComparison();
-    if (comparison != null) {
-      for (IMatch<?> match : comparison.getMapping().getContents()) {
-        int nb = countDifferences(match, true);
-        incrementDifferenceNumbersInHierarchy(match, nb);
+    Collection<? extends IMatch<?>> matches = comparison == null?
+        Collections.<IMatch<?>>emptyList(): comparison.getMapping().getContents();
+    int size = matches.size();
+    IMatch<?>[] byOrdinal = new IMatch<?>[size];
+    int ordinal = 0;
+    for (IMatch<?> match : matches) {
+      byOrdinal[ordinal] = match;
+      _matchOrdinals.put(match, Integer.valueOf(ordinal));
+      ordinal++;
+    }
+    int[] containers = new int[size];
+    int[] ownNumbers = new int[size];
+    int[] numbers = new int[size];
+    int[] pendingChildren = new int[size];
+    for (int i = 0; i < size; i++) {
+      IMatch<?> container = _node.getContainerOf(byOrdinal[i]);
+      containers[i] = container == null? -1: getOrdinal(container);
+      if (containers[i] >= 0) {
+        pendingChildren[containers[i]]++;
+      }
+      ownNumbers[i] = countDifferences(byOrdinal[i], true);
+      numbers[i] = ownNumbers[i];
+    }
+    // Propagate from leaves: a match is handled once all its children have been
+    int[] ready = new int[size];
+    int nbReady = 0;
+    for (int i = 0; i < size; i++) {
+      if (pendingChildren[i] == 0) {
+        ready[nbReady++] = i;
+      }
+    }
+    while (nbReady > 0) {
+      int current = ready[--nbReady];
+      int container = containers[current];
+      if (container >= 0) {
+        numbers[container] += numbers[current];
+        pendingChildren[container]--;
+        if (pendingChildren[container] == 0) {
+          ready[nbReady++] = container;
+        }
+      }
+    }
+    _containerOrdinals = containers;
+    _ownDifferenceNumbers = ownNumbers;
+    _differenceNumbers = numbers;
+  }
+  
+  /**
+   * Update filtering and difference numbers after the given differences have been
+   * merged or ignored. Only the paths from the concerned matches to the root are
+   * re-computed, unless the UI tree of matches may have changed.
+   * @param differences_p a non-null, potentially empty collection of differences
+   */
+  public void updateDifferenceNumbers(Collection<? extends IDifference<?>> differences_p) {
+    clearFilteringCache();
+    Set<IMatch<?>> concerned = Collections.newSetFromMap(
+        new IdentityHashMap<IMatch<?>, Boolean>());
+    for (IDifference<?> difference : differences_p) {
+      if (isContainmentRelated(difference) ||
+          !(difference instanceof IElementRelativeDifference)) {
+        updateDifferenceNumbers();
+        return;
+      }
+      concerned.add(((IElementRelativeDifference<?>)difference).getElementMatch());
+    }
+    for (IMatch<?> match : concerned) {
+      int ordinal = getOrdinal(match);
+      if (ordinal < 0) {
+        updateDifferenceNumbers();
+        return;
+      }
+      int newNumber = countDifferences(match, true);
+      int delta = newNumber - _ownDifferenceNumbers[ordinal];
+      if (delta != 0) {
+        _ownDifferenceNumbers[ordinal] = newNumber;
+        int current = ordinal;
+        while (current >= 0) {
+          _differenceNumbers[current] += delta;
+          current = _containerOrdinals[current];
+        }
       }
     }
   }
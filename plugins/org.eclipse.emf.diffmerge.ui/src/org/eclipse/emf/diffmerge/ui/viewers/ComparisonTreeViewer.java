@@ -19,6 +19,7 @@ import java.util.List;
 import org.eclipse.emf.diffmerge.generic.api.IComparison;
 import org.eclipse.emf.diffmerge.generic.api.IMatch;
 import org.eclipse.emf.diffmerge.generic.api.Role;
+import org.eclipse.emf.diffmerge.generic.gdiffdata.impl.GComparisonImpl;
 import org.eclipse.emf.diffmerge.ui.util.DiffDecoratingLabelProvider;
 import org.eclipse.emf.diffmerge.ui.util.UIUtil;
 import org.eclipse.jface.viewers.ColumnViewerToolTipSupport;
@@ -27,6 +28,7 @@ import org.eclipse.jface.viewers.ITreeSelection;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
@@ -338,6 +340,45 @@ public class ComparisonTreeViewer extends TreeViewer {
     return super.getSortedChildren(parentElementOrTreePath_p);
   }
   
+  /**
+   * Invalidate the contents index of the given comparison, if applicable
+   * @param comparison_p a potentially null comparison
+   */
+  protected void invalidateContentsIndex(IComparison<?> comparison_p) {
+    if (comparison_p instanceof GComparisonImpl<?, ?, ?>) {
+      ((GComparisonImpl<?, ?, ?>)comparison_p).invalidateContentsIndex();
+    }
+  }
+  
+  /**
+   * @see org.eclipse.jface.viewers.AbstractTreeViewer#internalRefresh(java.lang.Object, boolean)
+   */
+  @Override
+  protected void internalRefresh(Object element_p, boolean updateLabels_p) {
+    // The scopes may have been modified otherwise than through a merge, e.g., by undo
+    EMFDiffNode input = getInput();
+    if (input != null) {
+      invalidateContentsIndex(input.getActualComparison());
+    }
+    super.internalRefresh(element_p, updateLabels_p);
+  }
+  
+  /**
+   * Return whether the given element is not filtered out as a child of the given path,
+   * consistently with getSortedChildren(Object)
+   * @param parentPath_p a non-null path
+   * @param element_p a non-null element
+   */
+  protected boolean isVisible(TreePath parentPath_p, Object element_p) {
+    Object[] singleton = new Object[] {element_p};
+    for (ViewerFilter filter : getFilters()) {
+      if (filter.filter(this, (Object)parentPath_p, singleton).length == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
   
   /**
    * The content provider for this viewer.
@@ -352,20 +393,31 @@ public class ComparisonTreeViewer extends TreeViewer {
     }
     
     /**
-     * @see org.eclipse.jface.viewers.ITreePathContentProvider#getChildren(org.eclipse.jface.viewers.TreePath)
+     * Return the children of the given path as a list
+     * @param parentPath_p a non-null path
+     * @return a non-null, unmodifiable list
      */
     @SuppressWarnings("unchecked")
-    public Object[] getChildren(TreePath parentPath_p) {
+    protected List<IMatch<?>> getChildMatches(TreePath parentPath_p) {
       IMatch<?> end = (IMatch<?>)parentPath_p.getLastSegment();
       List<IMatch<?>> result;
-      if (end == null) {
+      if (getInput() == null) {
+        result = Collections.emptyList();
+      } else if (end == null) {
         result = getInput().getActualComparison().getContents();
       } else if (getInput().getCategoryManager().representAsMoveOrigin(parentPath_p)) {
         result = Collections.emptyList();
       } else {
         result = getInput().getActualComparison().getContentsOf(end);
       }
-      return result.toArray();
+      return result;
+    }
+    
+    /**
+     * @see org.eclipse.jface.viewers.ITreePathContentProvider#getChildren(org.eclipse.jface.viewers.TreePath)
+     */
+    public Object[] getChildren(TreePath parentPath_p) {
+      return getChildMatches(parentPath_p).toArray();
     }
     
     /**
@@ -393,14 +445,41 @@ public class ComparisonTreeViewer extends TreeViewer {
      * @see org.eclipse.jface.viewers.ITreePathContentProvider#hasChildren(org.eclipse.jface.viewers.TreePath)
      */
     public boolean hasChildren(TreePath path_p) {
-      return getSortedChildren(path_p).length > 0;
+      // Stop at the first visible child instead of computing and sorting all of them
+      for (IMatch<?> child : getChildMatches(path_p)) {
+        if (isVisible(path_p, child)) {
+          return true;
+        }
+      }
+      return false;
     }
     
     /**
      * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
      */
     public void inputChanged(Viewer viewer_p, Object oldInput_p, Object newInput_p) {
-      // Nothing needed
+      // The contents index is only enabled while the comparison is browsed
+      if (oldInput_p instanceof EMFDiffNode) {
+        setContentsIndexEnabled(
+            ((EMFDiffNode)oldInput_p).getActualComparison(), false);
+      }
+      if (newInput_p instanceof EMFDiffNode) {
+        setContentsIndexEnabled(
+            ((EMFDiffNode)newInput_p).getActualComparison(), true);
+      }
+    }
+    
+    /**
+     * Set whether the contents of the matches of the given comparison must be
+     * indexed, if applicable
+     * @param comparison_p a potentially null comparison
+     * @param enabled_p whether the index is enabled
+     */
+    protected void setContentsIndexEnabled(IComparison<?> comparison_p,
+        boolean enabled_p) {
+      if (comparison_p instanceof GComparisonImpl<?, ?, ?>) {
+        ((GComparisonImpl<?, ?, ?>)comparison_p).setContentsIndexEnabled(enabled_p);
+      }
     }
   }
   
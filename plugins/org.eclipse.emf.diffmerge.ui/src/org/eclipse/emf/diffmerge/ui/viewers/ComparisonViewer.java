@@ -2552,10 +2552,11 @@ public class ComparisonViewer extends AbstractComparisonViewer {
     }
     if (!merged.isEmpty() && done) {
       // React to merge
+      input.getCategoryManager().clearFilteringCache();
       input.setModified(true, toLeft_p);
       if (!input.isReactive()) {
         firePropertyChangeEvent(CompareEditorInput.DIRTY_STATE, Boolean.valueOf(true));
-        input.updateDifferenceNumbers();
+        input.updateDifferenceNumbers(merged);
       }
       if (input.isUserPropertyTrue(P_LOG_EVENTS)) {
         getLogger().log(new MergeLogEvent(input, merged, toLeft_p));
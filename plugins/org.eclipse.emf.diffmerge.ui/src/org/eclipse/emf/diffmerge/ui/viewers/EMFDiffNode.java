@@ -483,6 +483,7 @@ IUserPropertyOwner {
         }
       }
     }
+    getCategoryManager().clearFilteringCache();
   }
   
   /**
@@ -706,4 +707,14 @@ IUserPropertyOwner {
     fireChange();
   }
   
+  /**
+   * Update filtering and differences numbers after the given differences have been
+   * merged or ignored
+   * @param differences_p a non-null, potentially empty collection of differences
+   */
+  public void updateDifferenceNumbers(Collection<? extends IDifference<?>> differences_p) {
+    getCategoryManager().updateDifferenceNumbers(differences_p);
+    fireChange();
+  }
+  
 }
\ No newline at end of file
@@ -108,7 +108,8 @@ public class EComparisonImpl extends
   @Override
   protected IExpensiveOperation getMatchOperation(
       IMatchPolicy<EObject> policy_p, Map<Role, Set<Object>> duplicateIDs_p) {
-    return new MatchOperation(this, policy_p, duplicateIDs_p);
+    return new MatchOperation(this, policy_p, duplicateIDs_p,
+        getParallelism());
   }
 
   /**
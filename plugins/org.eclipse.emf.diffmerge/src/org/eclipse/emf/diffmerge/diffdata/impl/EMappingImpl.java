@@ -13,8 +13,12 @@ package org.eclipse.emf.diffmerge.diffdata.impl;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.TreeIterator;
@@ -25,6 +29,7 @@ import org.eclipse.emf.diffmerge.diffdata.EMatch;
 import org.eclipse.emf.diffmerge.generic.api.Role;
 import org.eclipse.emf.diffmerge.generic.api.scopes.IEditableTreeDataScope;
 import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
+import org.eclipse.emf.diffmerge.generic.gdiffdata.GdiffdataPackage;
 import org.eclipse.emf.diffmerge.generic.gdiffdata.impl.GMappingImpl;
 import org.eclipse.emf.diffmerge.structures.common.FArrayList;
 import org.eclipse.emf.ecore.EAttribute;
@@ -34,7 +39,6 @@ import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.EStructuralFeature.Setting;
 import org.eclipse.emf.ecore.util.EContentsEList;
-import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
 import org.eclipse.emf.ecore.util.ECrossReferenceEList;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
@@ -61,10 +65,22 @@ public class EMappingImpl extends GMappingImpl<EObject, EAttribute, EReference>
   private final ScopeCrossReferencer _referenceCrossReferencer;
 
   /**
-   * A non-null cross reference adapter on this mapping for retrieving matches from model elements
+   * A non-null, identity-based index from TARGET model elements to matches
    * @generated NOT
    */
-  private MatchCrossReferenceAdapter _matchAdapter;
+  private final Map<EObject, EMatch> _targetMatchIndex;
+
+  /**
+   * A non-null, identity-based index from REFERENCE model elements to matches
+   * @generated NOT
+   */
+  private final Map<EObject, EMatch> _referenceMatchIndex;
+
+  /**
+   * A non-null, identity-based index from ANCESTOR model elements to matches
+   * @generated NOT
+   */
+  private final Map<EObject, EMatch> _ancestorMatchIndex;
 
   /**
    * <!-- begin-user-doc -->
@@ -75,8 +91,10 @@ public class EMappingImpl extends GMappingImpl<EObject, EAttribute, EReference>
     super();
     _targetCrossReferencer = new ScopeCrossReferencer(this, Role.TARGET);
     _referenceCrossReferencer = new ScopeCrossReferencer(this, Role.REFERENCE);
-    _matchAdapter = new MatchCrossReferenceAdapter();
-    eAdapters().add(_matchAdapter);
+    _targetMatchIndex = new IdentityHashMap<EObject, EMatch>();
+    _referenceMatchIndex = new IdentityHashMap<EObject, EMatch>();
+    _ancestorMatchIndex = new IdentityHashMap<EObject, EMatch>();
+    eAdapters().add(new MatchIndexSynchronizerAdapter());
   }
 
   /**
@@ -98,9 +116,9 @@ public class EMappingImpl extends GMappingImpl<EObject, EAttribute, EReference>
     super.clear();
     _targetCrossReferencer.clear();
     _referenceCrossReferencer.clear();
-    eAdapters().remove(_matchAdapter);
-    _matchAdapter = new MatchCrossReferenceAdapter();
-    eAdapters().add(_matchAdapter);
+    _targetMatchIndex.clear();
+    _referenceMatchIndex.clear();
+    _ancestorMatchIndex.clear();
   }
 
   /**
@@ -149,26 +167,29 @@ public class EMappingImpl extends GMappingImpl<EObject, EAttribute, EReference>
    */
   public EMatch getMatchFor(Object element_p, Role role_p) {
     EMatch result = null;
-    if (role_p != null && element_p instanceof EObject) {
-      EReference matchReference;
-      switch (role_p) {
-      case ANCESTOR:
-        matchReference = DiffdataPackage.eINSTANCE.getEMatch_Ancestor();
-        break;
-      case REFERENCE:
-        matchReference = DiffdataPackage.eINSTANCE.getEMatch_Reference();
-        break;
-      default:
-        matchReference = DiffdataPackage.eINSTANCE.getEMatch_Target();
-      }
-      Collection<Setting> settings = _matchAdapter
-          .getNonNavigableInverseReferences((EObject) element_p);
-      for (Setting setting : settings) {
-        if (setting.getEStructuralFeature() == matchReference) {
-          result = (EMatch) setting.getEObject();
-          break;
-        }
-      }
+    if (role_p != null && element_p != null) {
+      result = getMatchIndex(role_p).get(element_p);
+    }
+    return result;
+  }
+
+  /**
+   * Return the identity-based index from model elements to matches for the given role
+   * @param role_p a non-null role
+   * @return a non-null, modifiable map
+   * @generated NOT
+   */
+  protected Map<EObject, EMatch> getMatchIndex(Role role_p) {
+    Map<EObject, EMatch> result;
+    switch (role_p) {
+    case ANCESTOR:
+      result = _ancestorMatchIndex;
+      break;
+    case REFERENCE:
+      result = _referenceMatchIndex;
+      break;
+    default:
+      result = _targetMatchIndex;
     }
     return result;
   }
@@ -200,19 +221,123 @@ public class EMappingImpl extends GMappingImpl<EObject, EAttribute, EReference>
   }
 
   /**
-   * A cross reference adapter for retrieving matches from model elements.
+   * An adapter on the mapping and its matches that keeps the match indexes
+   * synchronized with the contents of the mapping. No adapter is installed
+   * on model elements.
    * @generated NOT
    */
-  protected static class MatchCrossReferenceAdapter
-      extends ECrossReferenceAdapter {
+  protected class MatchIndexSynchronizerAdapter extends AdapterImpl {
     /**
-     * @see org.eclipse.emf.ecore.util.ECrossReferenceAdapter#isIncluded(org.eclipse.emf.ecore.EReference)
+     * @see org.eclipse.emf.common.notify.impl.AdapterImpl#isAdapterForType(java.lang.Object)
      */
     @Override
-    protected boolean isIncluded(EReference reference_p) {
-      return reference_p == DiffdataPackage.eINSTANCE.getEMatch_Ancestor()
-          || reference_p == DiffdataPackage.eINSTANCE.getEMatch_Reference()
-          || reference_p == DiffdataPackage.eINSTANCE.getEMatch_Target();
+    public boolean isAdapterForType(Object type_p) {
+      return type_p == MatchIndexSynchronizerAdapter.class;
+    }
+
+    /**
+     * @see org.eclipse.emf.common.notify.impl.AdapterImpl#notifyChanged(org.eclipse.emf.common.notify.Notification)
+     */
+    @Override
+    public void notifyChanged(Notification msg_p) {
+      Object feature = msg_p.getFeature();
+      Object notifier = msg_p.getNotifier();
+      if (notifier == EMappingImpl.this) {
+        if (feature == GdiffdataPackage.eINSTANCE
+            .getGMapping_ModifiableContents()) {
+          switch (msg_p.getEventType()) {
+          case Notification.ADD:
+            matchAdded((EMatch) msg_p.getNewValue());
+            break;
+          case Notification.ADD_MANY:
+            for (Object added : (Collection<?>) msg_p.getNewValue()) {
+              matchAdded((EMatch) added);
+            }
+            break;
+          case Notification.REMOVE:
+            matchRemoved((EMatch) msg_p.getOldValue());
+            break;
+          case Notification.REMOVE_MANY:
+            for (Object removed : (Collection<?>) msg_p.getOldValue()) {
+              matchRemoved((EMatch) removed);
+            }
+            break;
+          default:
+            break;
+          }
+        }
+      } else if (notifier instanceof EMatch) {
+        int eventType = msg_p.getEventType();
+        if (eventType == Notification.SET
+            || eventType == Notification.RESOLVE) {
+          Role role = null;
+          if (feature == DiffdataPackage.eINSTANCE.getEMatch_Target()) {
+            role = Role.TARGET;
+          } else if (feature == DiffdataPackage.eINSTANCE
+              .getEMatch_Reference()) {
+            role = Role.REFERENCE;
+          } else if (feature == DiffdataPackage.eINSTANCE
+              .getEMatch_Ancestor()) {
+            role = Role.ANCESTOR;
+          }
+          if (role != null) {
+            EMatch match = (EMatch) notifier;
+            unregister(match, (EObject) msg_p.getOldValue(), role);
+            register(match, (EObject) msg_p.getNewValue(), role);
+          }
+        }
+      }
+    }
+
+    /**
+     * Update the indexes according to the addition of the given match
+     * @param match_p a non-null match
+     */
+    protected void matchAdded(EMatch match_p) {
+      match_p.eAdapters().add(this);
+      for (Role role : Role.values()) {
+        register(match_p, match_p.get(role), role);
+      }
+    }
+
+    /**
+     * Update the indexes according to the removal of the given match
+     * @param match_p a non-null match
+     */
+    protected void matchRemoved(EMatch match_p) {
+      match_p.eAdapters().remove(this);
+      for (Role role : Role.values()) {
+        unregister(match_p, match_p.get(role), role);
+      }
+    }
+
+    /**
+     * Register the given match for the given element in the given role
+     * @param match_p a non-null match
+     * @param element_p a potentially null element
+     * @param role_p a non-null role
+     */
+    protected void register(EMatch match_p, EObject element_p, Role role_p) {
+      if (element_p != null) {
+        getMatchIndex(role_p).put(element_p, match_p);
+      }
+    }
+
+    /**
+     * Unregister the given match for the given element in the given role
+     * if it is the match currently registered
+     * @param match_p a non-null match
+     * @param element_p a potentially null element
+     * @param role_p a non-null role
+     */
+    protected void unregister(EMatch match_p, EObject element_p,
+        Role role_p) {
+      if (element_p != null) {
+        Map<EObject, EMatch> index = getMatchIndex(role_p);
+        if (index.get(element_p) == match_p) {
+          index.remove(element_p);
+        }
+      }
     }
   }
 
@@ -40,6 +40,19 @@ extends org.eclipse.emf.diffmerge.generic.impl.helpers.MatchOperation<EObject> {
     super(comparison_p, policy_p, duplicateIDs_p);
   }
   
+  /**
+   * Constructor with a level of parallelism
+   * @param comparison_p a non-null comparison whose mapping is to be built
+   * @param policy_p a non-null match policy
+   * @param duplicateIDs_p an optional map that associates each role with an empty,
+   *          modifiable set of duplicate match IDs, to be filled by this operation
+   * @param parallelism_p the strictly positive maximal number of threads
+   */
+  public MatchOperation(EComparison comparison_p, IMatchPolicy<EObject> policy_p,
+      Map<Role, Set<Object>> duplicateIDs_p, int parallelism_p) {
+    super(comparison_p, policy_p, duplicateIDs_p, parallelism_p);
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.generic.impl.helpers.MatchOperation#getComparison()
    */
@@ -15,6 +15,8 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.eclipse.emf.diffmerge.generic.api.config.IConfigurablePolicy;
+import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 
 
@@ -28,6 +30,9 @@ implements IConfigurablePolicy {
   /** Whether orders must be ignored */
   private boolean _ignoreOrders;
   
+  /** Whether values of many-valued attributes must be aligned by key */
+  private boolean _alignValuesByKey;
+  
   /** The non-null, potentially empty, modifiable set of listeners */
   protected final Set<IConfigurationChangedListener> _listeners;
   
@@ -37,6 +42,7 @@ implements IConfigurablePolicy {
    */
   public ConfigurableDiffPolicy() {
     _ignoreOrders = false;
+    _alignValuesByKey = false;
     _listeners = new LinkedHashSet<IConfigurationChangedListener>();
   }
   
@@ -56,6 +62,16 @@ implements IConfigurablePolicy {
     _listeners.add(listener_p);
   }
   
+  /**
+   * Values are aligned by key if and only if this policy is configured to do so.
+   * Subclasses which redefine considerEqual must redefine this operation accordingly.
+   * @see org.eclipse.emf.diffmerge.generic.api.IDiffPolicy#considerEqualByKey(java.lang.Object, org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope)
+   */
+  @Override
+  public boolean considerEqualByKey(Object attribute_p, ITreeDataScope<EObject> scope_p) {
+    return _alignValuesByKey;
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.impl.policies.DefaultDiffPolicy#considerOrderedFeature(org.eclipse.emf.ecore.EStructuralFeature)
    */
@@ -90,6 +106,14 @@ implements IConfigurablePolicy {
     }
   }
   
+  /**
+   * Return whether this policy aligns the values of many-valued attributes by key
+   * @see #setAlignValuesByKey(boolean)
+   */
+  public boolean isAlignValuesByKey() {
+    return _alignValuesByKey;
+  }
+  
   /**
    * Return whether this policy ignores orders
    */
@@ -104,6 +128,17 @@ implements IConfigurablePolicy {
     _listeners.remove(listener_p);
   }
   
+  /**
+   * Set whether the values of many-valued attributes must be aligned by hashing
+   * their keys rather than compared pairwise. This is only relevant if the
+   * values redefine Object#equals(Object) and Object#hashCode() consistently.
+   * @param align_p whether values must be aligned by key
+   */
+  public void setAlignValuesByKey(boolean align_p) {
+    _alignValuesByKey = align_p;
+    fireConfigurationChanged(null);
+  }
+  
   /**
    * Set whether orders must be ignored
    * @param ignore_p whether orders must be ignored
@@ -121,6 +156,7 @@ implements IConfigurablePolicy {
     if (policy_p instanceof ConfigurableDiffPolicy) {
       ConfigurableDiffPolicy policy = (ConfigurableDiffPolicy)policy_p;
       setIgnoreOrders(policy.isIgnoreOrders());
+      setAlignValuesByKey(policy.isAlignValuesByKey());
       result = true;
     }
     return result;
@@ -16,9 +16,12 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.emf.common.notify.Adapter;
@@ -28,6 +31,7 @@ import org.eclipse.emf.diffmerge.Messages;
 import org.eclipse.emf.diffmerge.generic.api.config.IConfigurablePolicy;
 import org.eclipse.emf.diffmerge.generic.api.scopes.ITreeDataScope;
 import org.eclipse.emf.diffmerge.generic.impl.policies.AbstractConfigurationElement;
+import org.eclipse.emf.diffmerge.generic.impl.policies.MatchIDCache;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.ENamedElement;
 import org.eclipse.emf.ecore.EObject;
@@ -96,6 +100,119 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
     }
   }
   
+  /**
+   * An index of a list of sibling elements which gives, in constant time, the position
+   * of each element and the number of elements of each type as well as the rank of
+   * each element among those of its type. Elements whose type is null are not counted.
+   */
+  protected static class SiblingTypeIndex {
+    /** The non-null map from elements to their first position */
+    private final Map<EObject, Integer> _positions;
+    /** The non-null map from elements to their rank among the elements of their type */
+    private final Map<EObject, Integer> _ranks;
+    /** The non-null map from types to their number of elements */
+    private final Map<Object, Integer> _counts;
+    /**
+     * Constructor for an index of positions only, where no element has a type
+     * @param siblings_p a non-null list of elements
+     */
+    public SiblingTypeIndex(List<? extends EObject> siblings_p) {
+      this(siblings_p, Collections.nCopies(siblings_p.size(), null));
+    }
+    /**
+     * Constructor
+     * @param siblings_p a non-null list of elements
+     * @param types_p a non-null list of potentially null types of the same size as siblings_p
+     */
+    public SiblingTypeIndex(List<? extends EObject> siblings_p, List<?> types_p) {
+      int size = siblings_p.size();
+      _positions = new IdentityHashMap<EObject, Integer>(size);
+      _ranks = new IdentityHashMap<EObject, Integer>(size);
+      _counts = new HashMap<Object, Integer>();
+      for (int i = 0; i < size; i++) {
+        EObject sibling = siblings_p.get(i);
+        boolean isNew = !_positions.containsKey(sibling);
+        if (isNew) {
+          _positions.put(sibling, Integer.valueOf(i));
+        }
+        Object type = types_p.get(i);
+        if (type != null) {
+          int count = getCount(type);
+          if (isNew) {
+            _ranks.put(sibling, Integer.valueOf(count));
+          }
+          _counts.put(type, Integer.valueOf(count + 1));
+        }
+      }
+    }
+    /**
+     * Return the number of elements of the given type
+     * @param type_p a non-null type
+     * @return a positive int
+     */
+    public int getCount(Object type_p) {
+      Integer result = _counts.get(type_p);
+      return (result == null)? 0: result.intValue();
+    }
+    /**
+     * Return the first position of the given element
+     * @param element_p a non-null element
+     * @return a positive int, or -1 if the element is not indexed
+     */
+    public int getPosition(EObject element_p) {
+      Integer result = _positions.get(element_p);
+      return (result == null)? -1: result.intValue();
+    }
+    /**
+     * Return the rank of the given element among the elements of its type
+     * @param element_p a non-null element
+     * @return a positive int, or -1 if the element is not indexed or has no type
+     */
+    public int getRank(EObject element_p) {
+      Integer result = _ranks.get(element_p);
+      return (result == null)? -1: result.intValue();
+    }
+    /**
+     * Return whether the given element is indexed and is the only one of the given type
+     * @param element_p a non-null element
+     * @param type_p the potentially null type of element_p
+     */
+    public boolean isUniqueOfItsType(EObject element_p, Object type_p) {
+      return type_p != null && _positions.containsKey(element_p) && getCount(type_p) == 1;
+    }
+  }
+  
+  /**
+   * A discriminator for the index of the positions only of a sibling list,
+   * which is distinct from the discriminator of the index of its types.
+   */
+  protected static final class PositionDiscriminator {
+    /** The potentially null discriminator of the sibling list */
+    private final Object _discriminator;
+    /**
+     * Constructor
+     * @param discriminator_p the potentially null discriminator of the sibling list
+     */
+    public PositionDiscriminator(Object discriminator_p) {
+      _discriminator = discriminator_p;
+    }
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object object_p) {
+      return object_p instanceof PositionDiscriminator &&
+          ((PositionDiscriminator)object_p)._discriminator == _discriminator;
+    }
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(_discriminator);
+    }
+  }
+  
   
   /** A criterion for name-based matching of exchanges and links */
   public static final FineGrainedMatchCriterion CRITERION_QNAMES_LABELS =
@@ -134,6 +251,9 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
   /** The configuration property that represents any fine-grained match criterion */
   public static final Object PROPERTY_FINE_GRAINED_MATCH_CRITERIA = new Object();
   
+  /** The number of siblings above which sibling lists are indexed instead of being scanned */
+  protected static final int SIBLING_INDEXING_THRESHOLD = 8;
+  
   
   /** The set of match criteria to use */
   private final Set<MatchCriterionKind> _selectedCriteria;
@@ -141,6 +261,15 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
   /** The set of fine-grained match criteria to use */
   private final Set<FineGrainedMatchCriterion> _selectedFineGrainedCriteria;
   
+  /** The non-null map from scopes to the memos of the match IDs of their containers,
+   * used when the cache is not */
+  private final Map<ITreeDataScope<EObject>, MatchIDCache<EObject>> _containerIDs;
+  
+  /** The non-null map from scopes to the maps from owners of sibling lists (containers,
+   * resources or scopes) to the indexes of these lists by discriminator such as
+   * containment references */
+  private final Map<ITreeDataScope<EObject>, Map<Object, Map<Object, SiblingTypeIndex>>> _siblingTypeIndexes;
+  
   
   /**
    * Default constructor
@@ -151,6 +280,9 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
         MatchCriterionKind.values().length);
     _selectedCriteria.addAll(getDefaultCriteria());
     _selectedFineGrainedCriteria = new HashSet<FineGrainedMatchCriterion>();
+    _containerIDs = new IdentityHashMap<ITreeDataScope<EObject>, MatchIDCache<EObject>>();
+    _siblingTypeIndexes =
+        new IdentityHashMap<ITreeDataScope<EObject>, Map<Object, Map<Object, SiblingTypeIndex>>>();
   }
   
   /**
@@ -162,6 +294,20 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
     update(policy_p);
   }
   
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.impl.policies.CachingMatchPolicy#clearCache()
+   */
+  @Override
+  public void clearCache() {
+    super.clearCache();
+    synchronized (_containerIDs) {
+      _containerIDs.clear();
+    }
+    synchronized (_siblingTypeIndexes) {
+      _siblingTypeIndexes.clear();
+    }
+  }
+  
   /**
    * Get the exact set of fine-grained match criteria that must be used according to this policy
    * @return a non-null, potentially empty, unmodifiable collection
@@ -208,6 +354,47 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
     return result;
   }
   
+  /**
+   * Return the match ID of the given element as the container of other elements.
+   * Match IDs of containers are memoized per scope until the cache is cleared, so that
+   * container-relative IDs are obtained in constant time per element instead of
+   * recomputing the whole chain of ancestors.
+   * @param container_p a non-null element
+   * @param scope_p a non-null scope that covers the element
+   * @return a potentially null string
+   */
+  protected String getContainerID(EObject container_p, ITreeDataScope<EObject> scope_p) {
+    if (useCache()) {
+      return getMatchID(container_p, scope_p);
+    }
+    String result;
+    MatchIDCache<EObject> memo = getContainerIDMemo(scope_p);
+    Object memoized = memo.get(container_p);
+    if (memoized == null) {
+      result = getMatchID(container_p, scope_p);
+      memo.put(container_p, (result == null)? NULL_MATCH_ID: result);
+    } else {
+      result = (memoized == NULL_MATCH_ID)? null: (String)memoized;
+    }
+    return result;
+  }
+  
+  /**
+   * Return the memo of the match IDs of the containers of the given scope
+   * @param scope_p a non-null scope
+   * @return a non-null memo
+   */
+  protected MatchIDCache<EObject> getContainerIDMemo(ITreeDataScope<EObject> scope_p) {
+    synchronized (_containerIDs) {
+      MatchIDCache<EObject> result = _containerIDs.get(scope_p);
+      if (result == null) {
+        result = new MatchIDCache<EObject>();
+        _containerIDs.put(scope_p, result);
+      }
+      return result;
+    }
+  }
+  
   /**
    * Return a match ID for the given element from the given scope
    * based on the ID of its container and the given ID suffix
@@ -222,7 +409,7 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
     String result = null;
     EObject container = getContainer(element_p, scope_p);
     if (container != null) {
-      String containerID = getMatchID(container, scope_p);
+      String containerID = getContainerID(container, scope_p);
       if (containerID != null) {
         String separator = separator_p == null? getQualificationSeparatorDefault():
           separator_p;
@@ -501,6 +688,93 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
     return Collections.unmodifiableList(result);
   }
   
+  /**
+   * Return the object that owns the sibling list of the given element, consistently
+   * with getSiblings
+   * @param element_p a non-null element
+   * @param scope_p a non-null scope that covers element_p
+   * @return a non-null object which is a container, a resource or a scope
+   */
+  protected Object getSiblingOwner(EObject element_p, ITreeDataScope<EObject> scope_p) {
+    Object result;
+    if (getContainment(element_p, scope_p) == null) {
+      Resource resource = element_p.eResource();
+      result = (isScopeOnly() || resource == null)? scope_p: resource;
+    } else {
+      result = getContainer(element_p, scope_p);
+    }
+    return result;
+  }
+  
+  /**
+   * Return an index of the given siblings of the given element that gives at least
+   * the position of each sibling. Structural types are not computed unless an index
+   * of them is already available. The index is built lazily and kept until the cache
+   * is cleared.
+   * @param element_p a non-null element
+   * @param siblings_p the non-null siblings of element_p as returned by getSiblings
+   * @param scope_p a non-null scope that covers element_p
+   * @return a non-null index
+   */
+  protected SiblingTypeIndex getSiblingPositionIndex(EObject element_p,
+      List<EObject> siblings_p, ITreeDataScope<EObject> scope_p) {
+    Object owner = getSiblingOwner(element_p, scope_p);
+    EReference containment = getContainment(element_p, scope_p);
+    SiblingTypeIndex result = getSiblingTypeIndex(owner, containment, scope_p);
+    if (result == null) {
+      Object discriminator = new PositionDiscriminator(containment);
+      result = getSiblingTypeIndex(owner, discriminator, scope_p);
+      if (result == null) {
+        result = registerSiblingTypeIndex(
+            owner, discriminator, new SiblingTypeIndex(siblings_p), scope_p);
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Return the index of the given sibling list for the given owner and discriminator
+   * in the given scope, if it has been registered since the cache was last cleared
+   * @param owner_p a potentially null object that owns the sibling list
+   * @param discriminator_p a potentially null object that discriminates the sibling list
+   *          among those of the owner
+   * @param scope_p a non-null scope that covers the sibling list
+   * @return a potentially null index
+   */
+  protected SiblingTypeIndex getSiblingTypeIndex(Object owner_p, Object discriminator_p,
+      ITreeDataScope<EObject> scope_p) {
+    synchronized (_siblingTypeIndexes) {
+      Map<Object, Map<Object, SiblingTypeIndex>> scopeIndexes = _siblingTypeIndexes.get(scope_p);
+      Map<Object, SiblingTypeIndex> indexes =
+          (scopeIndexes == null)? null: scopeIndexes.get(owner_p);
+      return (indexes == null)? null: indexes.get(discriminator_p);
+    }
+  }
+  
+  /**
+   * Return the index of the given siblings of the given element, where types are
+   * structural types. The index is built lazily and kept until the cache is cleared.
+   * @param element_p a non-null element
+   * @param siblings_p the non-null siblings of element_p as returned by getSiblings
+   * @param scope_p a non-null scope that covers element_p
+   * @return a non-null index
+   */
+  protected SiblingTypeIndex getSiblingTypeIndex(EObject element_p,
+      List<EObject> siblings_p, ITreeDataScope<EObject> scope_p) {
+    Object owner = getSiblingOwner(element_p, scope_p);
+    EReference containment = getContainment(element_p, scope_p);
+    SiblingTypeIndex result = getSiblingTypeIndex(owner, containment, scope_p);
+    if (result == null) {
+      List<Object> types = new ArrayList<Object>(siblings_p.size());
+      for (EObject sibling : siblings_p) {
+        types.add(getStructuralType(sibling, scope_p));
+      }
+      result = registerSiblingTypeIndex(
+          owner, containment, new SiblingTypeIndex(siblings_p, types), scope_p);
+    }
+    return result;
+  }
+  
   /**
    * Return an object that represents the type of the given element
    * for structure-based discrimination of elements.
@@ -723,8 +997,68 @@ org.eclipse.emf.diffmerge.generic.impl.policies.ConfigurableMatchPolicy<EObject>
    * @param scope_p a non-null scope that covers element_p
    */
   protected boolean isUniqueSiblingOfItsType(EObject element_p, ITreeDataScope<EObject> scope_p) {
-    Collection<EObject> siblings = getSiblings(element_p, scope_p);
-    return isUniqueOfItsTypeAmong(element_p, siblings, scope_p);
+    List<EObject> siblings = getSiblings(element_p, scope_p);
+    if (siblings.size() <= SIBLING_INDEXING_THRESHOLD) {
+      return isUniqueOfItsTypeAmong(element_p, siblings, scope_p);
+    }
+    SiblingTypeIndex index = getSiblingTypeIndex(element_p, siblings, scope_p);
+    return index.isUniqueOfItsType(element_p, getStructuralType(element_p, scope_p));
+  }
+  
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.impl.policies.CachingMatchPolicy#invalidate(java.lang.Object)
+   * The indexes of the siblings and of the children of the element are also invalidated.
+   */
+  @Override
+  public void invalidate(EObject element_p) {
+    super.invalidate(element_p);
+    synchronized (_containerIDs) {
+      for (MatchIDCache<EObject> memo : _containerIDs.values()) {
+        memo.invalidate(element_p);
+      }
+    }
+    EObject container = element_p.eContainer();
+    synchronized (_siblingTypeIndexes) {
+      for (Map.Entry<ITreeDataScope<EObject>, Map<Object, Map<Object, SiblingTypeIndex>>> entry :
+          _siblingTypeIndexes.entrySet()) {
+        Map<Object, Map<Object, SiblingTypeIndex>> scopeIndexes = entry.getValue();
+        scopeIndexes.remove(element_p);
+        scopeIndexes.remove((container != null)? container: element_p.eResource());
+        scopeIndexes.remove(entry.getKey());
+      }
+    }
+  }
+  
+  /**
+   * Register the given index of a sibling list for the given owner and discriminator
+   * in the given scope, unless one is already registered
+   * @param owner_p a potentially null object that owns the sibling list
+   * @param discriminator_p a potentially null object that discriminates the sibling list
+   *          among those of the owner
+   * @param index_p a non-null index
+   * @param scope_p a non-null scope that covers the sibling list
+   * @return the non-null index which is registered as a result
+   */
+  protected SiblingTypeIndex registerSiblingTypeIndex(Object owner_p, Object discriminator_p,
+      SiblingTypeIndex index_p, ITreeDataScope<EObject> scope_p) {
+    synchronized (_siblingTypeIndexes) {
+      Map<Object, Map<Object, SiblingTypeIndex>> scopeIndexes = _siblingTypeIndexes.get(scope_p);
+      if (scopeIndexes == null) {
+        scopeIndexes = new IdentityHashMap<Object, Map<Object, SiblingTypeIndex>>();
+        _siblingTypeIndexes.put(scope_p, scopeIndexes);
+      }
+      Map<Object, SiblingTypeIndex> indexes = scopeIndexes.get(owner_p);
+      if (indexes == null) {
+        indexes = new HashMap<Object, SiblingTypeIndex>(2);
+        scopeIndexes.put(owner_p, indexes);
+      }
+      SiblingTypeIndex result = indexes.get(discriminator_p);
+      if (result == null) {
+        indexes.put(discriminator_p, index_p);
+        result = index_p;
+      }
+      return result;
+    }
   }
   
   /**
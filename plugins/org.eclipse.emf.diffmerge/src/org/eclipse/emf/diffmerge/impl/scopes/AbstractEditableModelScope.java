@@ -62,6 +62,64 @@ implements IEditableModelScope {
     return result;
   }
   
+  /**
+   * Add the given values at once to the given element on the given many-valued reference.
+   * Subclasses which override add(EObject, EReference, EObject) must override this
+   * operation as well so that their specific behavior applies to every value.
+   * @param source_p a non-null element
+   * @param reference_p a non-null reference such that FeatureMapUtil.isMany(source_p, reference_p)
+   * @param values_p a non-null, potentially empty list of elements
+   * @return whether all values have been added
+   */
+  protected boolean addAll(EObject source_p, EReference reference_p,
+      List<? extends EObject> values_p) {
+    @SuppressWarnings("unchecked")
+    List<EObject> values = (List<EObject>)source_p.eGet(reference_p, resolveProxies());
+    int formerSize = values.size();
+    values.addAll(values_p); // Guarantees uniqueness
+    return values.size() == formerSize + values_p.size();
+  }
+  
+  /**
+   * Values of many-valued attributes are added at once, resulting in a single notification.
+   * Subclasses which override add(EObject, EAttribute, Object) may have to override this
+   * operation as well.
+   * @see org.eclipse.emf.diffmerge.generic.api.scopes.IEditableDataScope#addAttributeValues(java.lang.Object, java.lang.Object, java.util.List)
+   */
+  public boolean addAttributeValues(EObject source_p, Object attribute_p,
+      List<?> values_p) {
+    boolean result;
+    EAttribute attribute = (EAttribute)attribute_p;
+    if (values_p.size() > 1 && FeatureMapUtil.isMany(source_p, attribute)) {
+      @SuppressWarnings("unchecked")
+      List<Object> values = (List<Object>)source_p.eGet(attribute, resolveProxies());
+      int formerSize = values.size();
+      values.addAll(values_p);
+      result = values.size() == formerSize + values_p.size();
+    } else {
+      result = IEditableModelScope.super.addAttributeValues(source_p, attribute_p, values_p);
+    }
+    return result;
+  }
+  
+  /**
+   * Values of many-valued references are added at once through addAll(EObject, EReference, List),
+   * resulting in a single notification. Other values are added one at a time through
+   * add(EObject, EReference, EObject).
+   * @see org.eclipse.emf.diffmerge.generic.api.scopes.IEditableDataScope#addReferenceValues(java.lang.Object, java.lang.Object, java.util.List)
+   */
+  public boolean addReferenceValues(EObject source_p, Object reference_p,
+      List<? extends EObject> values_p) {
+    boolean result;
+    EReference reference = (EReference)reference_p;
+    if (values_p.size() > 1 && FeatureMapUtil.isMany(source_p, reference)) {
+      result = addAll(source_p, reference, values_p);
+    } else {
+      result = IEditableModelScope.super.addReferenceValues(source_p, reference_p, values_p);
+    }
+    return result;
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.generic.api.scopes.IEditableDataScope#disconnect(java.lang.Object)
    */
@@ -209,4 +209,12 @@ implements IFeaturedModelScope {
     return false;
   }
   
+  /**
+   * @see org.eclipse.emf.diffmerge.generic.api.scopes.IRawDataScope#supportsConcurrentReads()
+   * Navigating this scope has no side effect unless proxies are resolved.
+   */
+  public boolean supportsConcurrentReads() {
+    return !resolveProxies();
+  }
+  
 }
@@ -107,6 +107,17 @@ public class FilteredModelScope extends RootedModelScope {
     return result;
   }
   
+  /**
+   * @see org.eclipse.emf.diffmerge.impl.scopes.RootedModelScope#valuesAdded(org.eclipse.emf.ecore.EObject, org.eclipse.emf.ecore.EReference, java.util.List)
+   */
+  @Override
+  protected void valuesAdded(EObject source_p, EReference reference_p,
+      List<EObject> addedValues_p) {
+    super.valuesAdded(source_p, reference_p, addedValues_p);
+    // Add new values in scope
+    _inScope.addAll(addedValues_p);
+  }
+  
   /**
    * Redefine the whole content of the scope solely based on the current roots,
    * all their children and the given filter
@@ -155,10 +166,7 @@ public class FilteredModelScope extends RootedModelScope {
   @Override
   protected List<EObject> get(EObject source_p, EReference reference_p,
       boolean resolveProxies_p) {
-    List<EObject> originalValues = super.get(source_p, reference_p, resolveProxies_p);
-    List<EObject> result = new FArrayList<EObject>(originalValues, null);
-    result.retainAll(_inScope);
-    return Collections.unmodifiableList(result);
+    return restrictToScope(super.get(source_p, reference_p, resolveProxies_p));
   }
   
   /**
@@ -166,10 +174,7 @@ public class FilteredModelScope extends RootedModelScope {
    */
   @Override
   public List<EObject> getContents() {
-    List<EObject> result = new FArrayList<EObject>();
-    result.addAll(super.getContents());
-    result.retainAll(_inScope);
-    return Collections.unmodifiableList(result);
+    return restrictToScope(super.getContents());
   }
   
   /**
@@ -177,10 +182,7 @@ public class FilteredModelScope extends RootedModelScope {
    */
   @Override
   public List<EObject> getContents(EObject element_p) {
-    List<EObject> result = new FArrayList<EObject>(
-        super.getContents(element_p), IEqualityTester.BY_REFERENCE);
-    result.retainAll(_inScope);
-    return Collections.unmodifiableList(result);
+    return restrictToScope(super.getContents(element_p));
   }
   
   /**
@@ -192,6 +194,36 @@ public class FilteredModelScope extends RootedModelScope {
     return Collections.unmodifiableSet(_inScope);
   }
   
+  /**
+   * Return the given elements restricted to those which belong to this scope.
+   * If they all belong to the scope, which is the most frequent case, then the given
+   * list is returned as is. Otherwise, a single copy is made.
+   * @param elements_p a non-null, unmodifiable list
+   * @return a non-null, unmodifiable list
+   */
+  protected List<EObject> restrictToScope(List<EObject> elements_p) {
+    int nbInScope = 0;
+    for (EObject element : elements_p) {
+      if (_inScope.contains(element))
+        nbInScope++;
+    }
+    List<EObject> result;
+    if (nbInScope == elements_p.size()) {
+      result = elements_p;
+    } else if (nbInScope == 0) {
+      result = Collections.emptyList();
+    } else {
+      List<EObject> restricted = new FArrayList<EObject>(
+          nbInScope, IEqualityTester.BY_REFERENCE);
+      for (EObject element : elements_p) {
+        if (_inScope.contains(element))
+          restricted.add(element);
+      }
+      result = Collections.unmodifiableList(restricted);
+    }
+    return result;
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.impl.scopes.RootedModelScope#remove(org.eclipse.emf.ecore.EObject)
    */
@@ -41,8 +41,10 @@ import org.eclipse.emf.diffmerge.util.ModelImplUtil;
 import org.eclipse.emf.diffmerge.util.ModelsUtil;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.edit.domain.AdapterFactoryEditingDomain;
 import org.eclipse.emf.edit.domain.EditingDomain;
 import org.eclipse.emf.edit.domain.IEditingDomainProvider;
@@ -101,6 +103,11 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
   /** The resource referencing relationship */
   protected final IBinaryRelation.Editable<Resource, Resource> _referencedResources;
   
+  /** The non-null map from resource URIs to the resources of the scope, used
+   * for discovering referenced resources without resolving proxies during the
+   * first exploration (empty after full exploration) */
+  protected final Map<URI, Resource> _resourcesByURI;
+  
   /** The possible states of the scope, ordered */
   protected enum ScopeState {
     /**
@@ -197,6 +204,7 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
     _rootResources = new ArrayList<Resource>();
     _includedResources = new HashBinaryRelation<Resource, Resource>();
     _referencedResources = new HashBinaryRelation<Resource, Resource>();
+    _resourcesByURI = new HashMap<URI, Resource>();
     _initiallyPresentResources = new HashSet<Resource>();
     _initiallyPresentResources.addAll(_resourceSet.getResources());
     _loadedResources = new HashSet<Resource>();
@@ -237,6 +245,46 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
     return result;
   }
   
+  /**
+   * @see org.eclipse.emf.diffmerge.impl.scopes.AbstractEditableModelScope#addAll(org.eclipse.emf.ecore.EObject, org.eclipse.emf.ecore.EReference, java.util.List)
+   */
+  @Override
+  protected boolean addAll(EObject source_p, EReference reference_p,
+      List<? extends EObject> values_p) {
+    // Same as add(EObject, EReference, EObject) on each value, with a single addition
+    Map<EObject, Resource> formerRoots = null;
+    Map<EObject, Object> formerIds = null;
+    for (EObject value : values_p) {
+      Resource directResource = ((InternalEObject)value).eDirectResource();
+      if (directResource != null && reference_p.isContainment()) { // Intentionally not isContainment(reference_p)
+        if (formerRoots == null) {
+          formerRoots = new HashMap<EObject, Resource>();
+        }
+        formerRoots.put(value, directResource);
+      }
+      Object formerId = tGetID(value, false);
+      if (formerId != null) {
+        if (formerIds == null) {
+          formerIds = new HashMap<EObject, Object>();
+        }
+        formerIds.put(value, formerId);
+      }
+    }
+    boolean result = super.addAll(source_p, reference_p, values_p);
+    if (formerRoots != null) {
+      for (Map.Entry<EObject, Resource> formerRoot : formerRoots.entrySet()) {
+        formerRoot.getValue().getContents().remove(formerRoot.getKey()); // Not automatically handled
+      }
+    }
+    if (formerIds != null) {
+      // In case resource has changed, thus changing the extrinsic ID
+      for (Map.Entry<EObject, Object> formerId : formerIds.entrySet()) {
+        tSetID(formerId.getKey(), formerId.getValue(), false);
+      }
+    }
+    return result;
+  }
+  
   /**
    * Add the given resource to the set of covered resources
    * @param resource_p a non-null resource which is not contained in getResources()
@@ -248,6 +296,9 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
     if (!_initiallyPresentResources.contains(resource_p)) {
       _loadedResources.add(resource_p);
     }
+    if (!isFullyExplored() && resource_p.getURI() != null) {
+      _resourcesByURI.put(resource_p.getURI(), resource_p);
+    }
   }
   
   /**
@@ -279,6 +330,7 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
     _loadedResources.addAll(_resourceSet.getResources());
     _loadedResources.removeAll(_initiallyPresentResources);
     _initiallyPresentResources.clear();
+    _resourcesByURI.clear();
     // Handling read-only on loaded resources
     if (isReadOnly() && _editingDomain instanceof AdapterFactoryEditingDomain) {
       AdapterFactoryEditingDomain afEditingDomain = (AdapterFactoryEditingDomain)_editingDomain;
@@ -405,19 +457,69 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
    * @return a non-null, potentially empty list
    */
   protected List<Resource> getRelevantReferencedResources(EObject element_p) {
-    List<Resource> result = new FOrderedSet<Resource>();
+    List<Resource> result = null;
     Collection<EReference> refsInScope = getCrossReferencesInScope(element_p);
     for (EReference ref : refsInScope) {
       if (!ref.isContainment() && !ref.isContainer() && element_p.eIsSet(ref)) {
-        List<EObject> values = get(element_p, ref, true);
+        // Resources of proxies of plain references are first looked up by URI
+        boolean resolve = ref.isDerived() || ref.isVolatile();
+        List<EObject> values = get(element_p, ref, resolve);
+        boolean hasProxies = false;
         for (EObject value : values) {
-          Resource valueResource = value.eResource();
+          hasProxies = hasProxies || value.eIsProxy();
+          Resource valueResource = getReferencedResource(element_p, value);
           if (valueResource != null) {
+            if (result == null) {
+              result = new FOrderedSet<Resource>();
+            }
             result.add(valueResource);
           }
         }
+        if (hasProxies) {
+          // Proxies are then resolved in place by reading the resolving list, which is
+          // cheap since their resources are loaded, so that later reads of the scope
+          // need not resolve them
+          List<EObject> resolving = get(element_p, ref, true);
+          for (int i = 0; i < resolving.size(); i++) {
+            resolving.get(i);
+          }
+        }
       }
     }
+    if (result == null) {
+      result = Collections.emptyList();
+    }
+    return result;
+  }
+  
+  /**
+   * Return the resource of the given value of a cross-reference of the given element.
+   * If the value is a proxy whose resource is already part of the scope, then the proxy
+   * is not resolved.
+   * @param source_p a non-null element belonging to the scope
+   * @param value_p a non-null element referenced by source_p
+   * @return a potentially null resource
+   */
+  protected Resource getReferencedResource(EObject source_p, EObject value_p) {
+    Resource result = null;
+    if (value_p.eIsProxy()) {
+      URI proxyURI = ((InternalEObject)value_p).eProxyURI();
+      URI resourceURI = proxyURI != null? proxyURI.trimFragment(): null;
+      if (resourceURI != null) {
+        result = _resourcesByURI.get(resourceURI);
+      }
+      if (result == null) {
+        EObject resolved = EcoreUtil.resolve(value_p, source_p);
+        if (!resolved.eIsProxy()) {
+          result = resolved.eResource();
+          if (result != null && resourceURI != null) {
+            _resourcesByURI.put(resourceURI, result);
+          }
+        }
+      }
+    } else {
+      result = value_p.eResource();
+    }
     return result;
   }
   
@@ -451,6 +553,14 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
     return rootResource;
   }
   
+  /**
+   * Return the resource set in which the resources of this scope are loaded
+   * @return a non-null resource set
+   */
+  public ResourceSet getResourceSet() {
+    return _resourceSet;
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.api.scopes.IFragmentedModelScope#getResources()
    * Result is guaranteed to be accurate only if hasBeenExplored().
@@ -625,6 +735,15 @@ implements IFragmentedModelScope.Editable, IEditingDomainProvider {
     _loadingStream = stream_p;
   }
   
+  /**
+   * @see org.eclipse.emf.diffmerge.impl.scopes.AbstractModelScope#supportsConcurrentReads()
+   * Reading references may resolve proxies in place.
+   */
+  @Override
+  public boolean supportsConcurrentReads() {
+    return false;
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.api.scopes.IPersistentModelScope#unload()
    */
@@ -13,9 +13,11 @@ package org.eclipse.emf.diffmerge.impl.scopes;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.emf.diffmerge.structures.IEqualityTester;
 import org.eclipse.emf.diffmerge.structures.common.FArrayList;
+import org.eclipse.emf.diffmerge.structures.common.FHashSet;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.util.EcoreUtil;
@@ -74,6 +76,42 @@ public class RootedModelScope extends AbstractEditableModelScope {
     return result;
   }
   
+  /**
+   * @see org.eclipse.emf.diffmerge.impl.scopes.AbstractEditableModelScope#addAll(org.eclipse.emf.ecore.EObject, org.eclipse.emf.ecore.EReference, java.util.List)
+   */
+  @Override
+  protected boolean addAll(EObject source_p, EReference reference_p,
+      List<? extends EObject> values_p) {
+    // Same as add(EObject, EReference, EObject) on each value, with a single addition
+    @SuppressWarnings("unchecked")
+    List<EObject> formerValues = (List<EObject>)source_p.eGet(reference_p, resolveProxies());
+    Set<EObject> known = new FHashSet<EObject>(formerValues, IEqualityTester.BY_REFERENCE);
+    boolean result = super.addAll(source_p, reference_p, values_p);
+    List<EObject> addedValues = new FArrayList<EObject>(values_p.size(), null);
+    for (EObject value : values_p) {
+      if (known.add(value)) {
+        addedValues.add(value);
+      }
+    }
+    valuesAdded(source_p, reference_p, addedValues);
+    return result;
+  }
+  
+  /**
+   * Update the local state of this scope after the given values have been added
+   * to the given element on the given reference through addAll(EObject, EReference, List)
+   * @param source_p a non-null element
+   * @param reference_p a non-null many-valued reference
+   * @param addedValues_p a non-null, potentially empty list of the values which were
+   *        not already present
+   */
+  protected void valuesAdded(EObject source_p, EReference reference_p,
+      List<EObject> addedValues_p) {
+    if (!addedValues_p.isEmpty() && mIsContainmentReference(reference_p)) {
+      _roots.removeAll(new FHashSet<EObject>(addedValues_p, IEqualityTester.BY_REFERENCE));
+    }
+  }
+  
   /**
    * @see org.eclipse.emf.diffmerge.api.scopes.IModelScope#covers(EObject)
    */
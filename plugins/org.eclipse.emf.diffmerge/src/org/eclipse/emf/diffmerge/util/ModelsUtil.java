@@ -18,19 +18,22 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.diffmerge.EMFDiffMergePlugin;
+import org.eclipse.emf.diffmerge.structures.IEqualityTester;
+import org.eclipse.emf.diffmerge.structures.common.FHashSet;
 import org.eclipse.emf.diffmerge.structures.common.FOrderedSet;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.edit.provider.IDisposable;
 
 
@@ -183,32 +186,32 @@ public final class ModelsUtil {
    */
   private static List<EObject> getAllContentsDF(Collection<? extends EObject> elements_p,
       IElementFilter filter_p) {
-    List<EObject> result = new FOrderedSet<EObject>();
+    FOrderedSet<EObject> result = new FOrderedSet<EObject>();
+    Set<EObject> collected = new FHashSet<EObject>(IEqualityTester.BY_REFERENCE);
     for (EObject element : elements_p) {
-      result.addAll(getAllContentsDF(element, filter_p));
+      getAllContentsDF(element, result, collected, filter_p);
     }
     return result;
   }
   
   /**
-   * Return all the elements of the containment tree of the given element in depth-first
-   * order
+   * Add all the elements of the containment tree of the given element in depth-first
+   * order to the given list, unless they have already been collected
    * @param element_p a non-null element
+   * @param result_p the non-null modifiable result being built
+   * @param collected_p the non-null modifiable set of the elements of result_p
    * @param filter_p an optional filter
-   * @return a non-null, modifiable list
    */
-  private static List<EObject> getAllContentsDF(EObject element_p,
-      IElementFilter filter_p) {
-    List<EObject> result = new FOrderedSet<EObject>();
-    if (filter_p == null || filter_p.accepts(element_p))
-      result.add(element_p);
+  private static void getAllContentsDF(EObject element_p, FOrderedSet<EObject> result_p,
+      Set<EObject> collected_p, IElementFilter filter_p) {
+    if ((filter_p == null || filter_p.accepts(element_p)) && collected_p.add(element_p))
+      result_p.addUnique(element_p);
     TreeIterator<EObject> it = element_p.eAllContents();
     while (it.hasNext()) {
       EObject current = it.next();
-      if (filter_p == null || filter_p.accepts(current))
-        result.add(current);
+      if ((filter_p == null || filter_p.accepts(current)) && collected_p.add(current))
+        result_p.addUnique(current);
     }
-    return result;
   }
   
   /**
@@ -221,14 +224,16 @@ public final class ModelsUtil {
    * @param filter_p an optional filter
    */
   private static void getAllContentsBF(LinkedList<EObject> elements_p,
-      List<EObject> result_p, IElementFilter filter_p) {
-    if (!elements_p.isEmpty()) {
+      FOrderedSet<EObject> result_p, IElementFilter filter_p) {
+    // Iterative for scalability reasons
+    Set<EObject> collected = new FHashSet<EObject>(result_p, IEqualityTester.BY_REFERENCE);
+    while (!elements_p.isEmpty()) {
       EObject current = elements_p.poll();
-      if (filter_p == null || filter_p.accepts(current)) {
-        result_p.add(current);
+      if ((filter_p == null || filter_p.accepts(current)) && collected.add(current)) {
+        // Contents of an element already collected have already been queued
+        result_p.addUnique(current);
         elements_p.addAll(current.eContents());
       }
-      getAllContentsBF(elements_p, result_p, filter_p);
     }
   }
   
@@ -261,8 +266,9 @@ public final class ModelsUtil {
     if (depthFirst_p) {
       result = getAllContentsDF(elements_p, filter_p);
     } else {
-      result = new FOrderedSet<EObject>();
-      getAllContentsBF(new LinkedList<EObject>(elements_p), result, filter_p);
+      FOrderedSet<EObject> contents = new FOrderedSet<EObject>();
+      getAllContentsBF(new LinkedList<EObject>(elements_p), contents, filter_p);
+      result = contents;
     }
     return result;
   }
@@ -396,11 +402,12 @@ public final class ModelsUtil {
    */
   public static <T extends EObject> List<T> getRoots(
       Collection<? extends T> elements_p) {
-    List<T> result = new FOrderedSet<T>();
-    Collection<T> elements = new FOrderedSet<T>(elements_p, null);
-    for (T element : elements) {
-      if (!result.contains(element) && isRootAmong(element, elements))
-        result.add(element);
+    FOrderedSet<T> result = new FOrderedSet<T>();
+    Set<EObject> elements = new FHashSet<EObject>(elements_p, IEqualityTester.BY_REFERENCE);
+    Set<EObject> roots = new FHashSet<EObject>(IEqualityTester.BY_REFERENCE);
+    for (T element : elements_p) {
+      if (isRootAmong(element, elements) && roots.add(element))
+        result.addUnique(element);
     }
     return result;
   }
@@ -421,15 +428,19 @@ public final class ModelsUtil {
   
   /**
    * Return whether the given element is not transitively contained by any
-   * of the given elements, unless it is one of the given elements
+   * of the given elements other than itself
    * @param element_p a non-null element
-   * @param elements_p a non-null collection
+   * @param elements_p a non-null set
    */
   private static boolean isRootAmong(EObject element_p,
-      Collection<? extends EObject> elements_p) {
-    Collection<EObject> filtered = new FOrderedSet<EObject>(elements_p, null);
-    filtered.remove(element_p);
-    return !EcoreUtil.isAncestor(filtered, element_p);
+      Set<? extends EObject> elements_p) {
+    InternalEObject container = ((InternalEObject)element_p).eInternalContainer();
+    while (container != null) {
+      if (elements_p.contains(container))
+        return false;
+      container = container.eInternalContainer();
+    }
+    return true;
   }
   
 }